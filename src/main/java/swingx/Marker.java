@@ -65,6 +65,47 @@ public class Marker {
 		return component;
 	}
 
+	/**
+	 * Move this marker to the given bounds, repainting only the changed region
+	 * if changed.
+	 * 
+	 * @param rect
+	 *            new bounds
+	 */
+	public void setBounds(Rectangle rect) {
+		setBounds(rect.x, rect.y, rect.x + rect.width, rect.y + rect.height);
+	}
+
+	/**
+	 * Move this marker to the given bounds, repainting only the changed region
+	 * if changed.
+	 */
+	public void setBounds(int x1, int y1, int x2, int y2) {
+		checkNotReleased();
+
+		int newX1 = Math.min(x1, x2);
+		int newY1 = Math.min(y1, y2);
+		int newX2 = Math.max(x1, x2);
+		int newY2 = Math.max(y1, y2);
+
+		if (newX1 == this.x1 && newY1 == this.y1 && newX2 == this.x2
+				&& newY2 == this.y2) {
+			return;
+		}
+
+		int oldX1 = this.x1;
+		int oldY1 = this.y1;
+		int oldX2 = this.x2;
+		int oldY2 = this.y2;
+
+		this.x1 = newX1;
+		this.y1 = newY1;
+		this.x2 = newX2;
+		this.y2 = newY2;
+
+		markChange(oldX1, oldY1, oldX2, oldY2);
+	}
+
 	public boolean contains(int x, int y) {
 		return contains(x, y, 0, 0);
 	}
@@ -87,9 +128,70 @@ public class Marker {
 		component.repaint(x1, y1, x2 - x1, y2 - y1);
 	}
 
+	/**
+	 * Mark the change from the given old bounds to the current bounds. Only
+	 * strips around the moved edges are repainted, since all other pixels
+	 * are either inside or outside of both bounds and away from their border.
+	 */
+	protected void markChange(int oldX1, int oldY1, int oldX2, int oldY2) {
+		int unionX1 = Math.min(oldX1, x1);
+		int unionY1 = Math.min(oldY1, y1);
+		int unionX2 = Math.max(oldX2, x2);
+		int unionY2 = Math.max(oldY2, y2);
+
+		int inset = Math.max(1, Math.round(stroke.getLineWidth())) + 1;
+
+		// bounds of the dirty strips, accumulated without allocation
+		int dirtyX1 = Integer.MAX_VALUE;
+		int dirtyY1 = Integer.MAX_VALUE;
+		int dirtyX2 = Integer.MIN_VALUE;
+		int dirtyY2 = Integer.MIN_VALUE;
+		if (oldX1 != x1) {
+			dirtyX1 = Math.min(dirtyX1, Math.min(oldX1, x1));
+			dirtyX2 = Math.max(dirtyX2, Math.max(oldX1, x1) + inset);
+			dirtyY1 = unionY1;
+			dirtyY2 = unionY2;
+		}
+		if (oldX2 != x2) {
+			dirtyX1 = Math.min(dirtyX1, Math.min(oldX2, x2) - inset);
+			dirtyX2 = Math.max(dirtyX2, Math.max(oldX2, x2));
+			dirtyY1 = unionY1;
+			dirtyY2 = unionY2;
+		}
+		if (oldY1 != y1) {
+			dirtyY1 = Math.min(dirtyY1, Math.min(oldY1, y1));
+			dirtyY2 = Math.max(dirtyY2, Math.max(oldY1, y1) + inset);
+			dirtyX1 = unionX1;
+			dirtyX2 = unionX2;
+		}
+		if (oldY2 != y2) {
+			dirtyY1 = Math.min(dirtyY1, Math.min(oldY2, y2) - inset);
+			dirtyY2 = Math.max(dirtyY2, Math.max(oldY2, y2));
+			dirtyX1 = unionX1;
+			dirtyX2 = unionX2;
+		}
+
+		if (dirtyX1 < dirtyX2) {
+			dirtyX1 = Math.max(dirtyX1, unionX1);
+			dirtyY1 = Math.max(dirtyY1, unionY1);
+			dirtyX2 = Math.min(dirtyX2, unionX2);
+			dirtyY2 = Math.min(dirtyY2, unionY2);
+
+			component.repaint(dirtyX1, dirtyY1, dirtyX2 - dirtyX1, dirtyY2
+					- dirtyY1);
+		}
+	}
+
 	public void paint(Graphics2D g) {
 		checkNotReleased();
 
+		paint(g, x1, y1, x2, y2);
+	}
+
+	/**
+	 * Paint this marker with the given bounds.
+	 */
+	protected void paint(Graphics2D g, int x1, int y1, int x2, int y2) {
 		int thick = Math.round(stroke.getLineWidth());
 		int x = x1 + thick / 2;
 		int width = x2 - x1 - Math.max(1, thick);
@@ -133,10 +235,24 @@ public class Marker {
 			}
 		}
 
-		public void paint(Graphics2D g) {
+		/**
+		 * Overridden to erase the old bounds and paint the new bounds, as XOR
+		 * painting cannot be limited to the changed region.
+		 */
+		protected void markChange(int oldX1, int oldY1, int oldX2, int oldY2) {
+			Graphics2D g = (Graphics2D) getComponent().getGraphics();
+			if (g != null) {
+				paint(g, oldX1, oldY1, oldX2, oldY2);
+				paint(g);
+
+				g.dispose();
+			}
+		}
+
+		protected void paint(Graphics2D g, int x1, int y1, int x2, int y2) {
 			g.setXORMode(Color.white);
 
-			super.paint(g);
+			super.paint(g, x1, y1, x2, y2);
 
 			g.setPaintMode();
 		}
@@ -0,0 +1,47 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking;
+
+import javax.swing.JComponent;
+
+/**
+ * A provider of the content of a dockable, allowing a {@link Docked} to defer
+ * creation of the content until it is actually shown.
+ * 
+ * @see LazyDocked#setContent(ContentProvider)
+ * @see DefaultDockable#setContentProvider(ContentProvider)
+ */
+public interface ContentProvider {
+
+	/**
+	 * Create the content.
+	 * 
+	 * @return the created content
+	 */
+	public JComponent createContent();
+
+	/**
+	 * Notification that content created by this provider was unloaded and
+	 * will be created again when needed.
+	 * 
+	 * @param content
+	 *            the unloaded content
+	 */
+	public void contentUnloaded(JComponent content);
+}
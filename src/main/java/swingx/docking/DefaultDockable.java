@@ -29,6 +29,7 @@ import javax.swing.JMenu;
  * Override {@link #addTools(Docked)} to configure required tools once docked.
  * 
  * @see Docked#setContent(JComponent)
+ * @see LazyDocked#setContent(ContentProvider)
  * @see Docked#setTitle(String)
  * @see Docked#setIcon(Icon)
  * @see Docked#setMenu(JMenu)
@@ -61,6 +62,11 @@ public class DefaultDockable extends AbstractDockable {
 	 */
 	private JComponent content;
 
+	/**
+	 * The provider of the component.
+	 */
+	private ContentProvider contentProvider;
+
 	public void setTitle(String title) {
 		this.title = title;
 
@@ -107,6 +113,7 @@ public class DefaultDockable extends AbstractDockable {
 
 	public void setContent(JComponent content) {
 		this.content = content;
+		this.contentProvider = null;
 
 		if (isDocked()) {
 			getDocked().setContent(content);
@@ -117,6 +124,28 @@ public class DefaultDockable extends AbstractDockable {
 		return content;
 	}
 
+	/**
+	 * Set a provider of the content instead of the content itself, allowing
+	 * creation of the content to be deferred until it is shown - if docked in
+	 * a {@link Docked} that is not a {@link LazyDocked} the content is created
+	 * immediately.
+	 * 
+	 * @param contentProvider
+	 *            provider of the content
+	 */
+	public void setContentProvider(ContentProvider contentProvider) {
+		this.content = null;
+		this.contentProvider = contentProvider;
+
+		if (isDocked()) {
+			installContent(getDocked());
+		}
+	}
+
+	public ContentProvider getContentProvider() {
+		return contentProvider;
+	}
+
 	@Override
 	public void docked(Docked docked) {
 		super.docked(docked);
@@ -124,11 +153,21 @@ public class DefaultDockable extends AbstractDockable {
 		docked.setTitle(title);
 		docked.setIcon(icon);
 		docked.setStatus(status);
-		docked.setContent(content);
+		installContent(docked);
 
 		addTools(docked);
 	}
 
+	private void installContent(Docked docked) {
+		if (contentProvider == null) {
+			docked.setContent(content);
+		} else if (docked instanceof LazyDocked) {
+			((LazyDocked) docked).setContent(contentProvider);
+		} else {
+			docked.setContent(contentProvider.createContent());
+		}
+	}
+
 	protected void addTools(Docked docked) {
 
 	}
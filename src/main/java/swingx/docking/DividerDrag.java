@@ -0,0 +1,209 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking;
+
+import java.awt.Component;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseEvent;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.MouseInputAdapter;
+
+/**
+ * Handler of mouse drags of dividers, shared by {@link Slice} and
+ * {@link MultiSlice}. Depending on the mode of resizing, a drag is applied
+ * immediately, throttled or shown as an outline until the mouse is released.
+ * 
+ * @see Slice#RESIZE_CONTINUOUS
+ * @see Slice#RESIZE_THROTTLED
+ * @see Slice#RESIZE_OUTLINE
+ */
+abstract class DividerDrag extends MouseInputAdapter implements ActionListener {
+
+	/**
+	 * The delay in milliseconds between drags while throttling, i.e. about
+	 * one display frame.
+	 */
+	static final int THROTTLE_DELAY = 16;
+
+	/**
+	 * The component containing the dividers.
+	 */
+	private JComponent container;
+
+	private Point dragStart;
+
+	/**
+	 * The divider whose drag is not yet applied while throttling or
+	 * outlining.
+	 */
+	private Component pendingDivider;
+
+	/**
+	 * The position of the pending divider.
+	 */
+	private int pendingPosition;
+
+	private Timer throttle;
+
+	/**
+	 * The outline and insets, reused for all drags.
+	 */
+	private Rectangle outline = new Rectangle();
+
+	private Insets insets = new Insets(0, 0, 0, 0);
+
+	/**
+	 * Create a drag handler for dividers of the given container.
+	 * 
+	 * @param container
+	 *            container of dividers
+	 */
+	public DividerDrag(JComponent container) {
+		this.container = container;
+	}
+
+	/**
+	 * Get the mode of resizing.
+	 * 
+	 * @return mode of resizing
+	 */
+	protected abstract int getResizeMode();
+
+	/**
+	 * Are dividers dragged vertically.
+	 * 
+	 * @return <code>true</code> if dividers are dragged vertically
+	 */
+	protected abstract boolean isVertical();
+
+	/**
+	 * Get the spacing, i.e. the size of dividers.
+	 * 
+	 * @return spacing
+	 */
+	protected abstract int getSpacing();
+
+	/**
+	 * Apply a drag of the given divider.
+	 * 
+	 * @param divider
+	 *            the dragged divider
+	 * @param position
+	 *            the new position of the divider along the axis of dragging
+	 */
+	protected abstract void drag(Component divider, int position);
+
+	public void mousePressed(MouseEvent e) {
+		dragStart = e.getPoint();
+	}
+
+	public void mouseDragged(MouseEvent e) {
+		if (dragStart == null) {
+			// mousePressed might not be called if focus was in a popupmenu
+			// previously
+			dragStart = e.getPoint();
+		}
+
+		Component divider = e.getComponent();
+
+		int position;
+		if (isVertical()) {
+			position = divider.getY() + e.getY() - dragStart.y;
+		} else {
+			position = divider.getX() + e.getX() - dragStart.x;
+		}
+
+		int resizeMode = getResizeMode();
+		if (resizeMode == Slice.RESIZE_THROTTLED) {
+			pendingDivider = divider;
+			pendingPosition = position;
+
+			if (throttle == null) {
+				throttle = new Timer(THROTTLE_DELAY, this);
+				throttle.setRepeats(false);
+			}
+			if (!throttle.isRunning()) {
+				throttle.start();
+			}
+		} else if (resizeMode == Slice.RESIZE_OUTLINE) {
+			pendingDivider = divider;
+			pendingPosition = position;
+
+			int spacing = getSpacing();
+			container.getInsets(insets);
+			if (isVertical()) {
+				int bottom = container.getHeight() - insets.bottom - spacing;
+				int y = Math.max(insets.top, Math.min(position, bottom));
+				outline.setBounds(divider.getX(), y, divider.getWidth(),
+						spacing);
+			} else {
+				int right = container.getWidth() - insets.right - spacing;
+				int x = Math.max(insets.left, Math.min(position, right));
+				outline.setBounds(x, divider.getY(), spacing, divider
+						.getHeight());
+			}
+			outline(outline);
+		} else {
+			drag(divider, position);
+		}
+	}
+
+	public void mouseReleased(MouseEvent e) {
+		if (throttle != null) {
+			throttle.stop();
+		}
+		if (getResizeMode() == Slice.RESIZE_OUTLINE) {
+			outline(null);
+		}
+		flushDrag();
+
+		dragStart = null;
+	}
+
+	public void actionPerformed(ActionEvent e) {
+		flushDrag();
+	}
+
+	private void flushDrag() {
+		if (pendingDivider != null) {
+			Component divider = pendingDivider;
+			pendingDivider = null;
+
+			drag(divider, pendingPosition);
+		}
+	}
+
+	private void outline(Rectangle outline) {
+		Docking docking = (Docking) SwingUtilities.getAncestorOfClass(
+				Docking.class, container);
+		if (docking != null) {
+			if (outline != null) {
+				docking.translateFrom(container, outline);
+			}
+			docking.setOutline(outline);
+		}
+	}
+}
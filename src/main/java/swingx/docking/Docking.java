@@ -25,21 +25,29 @@ import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Image;
 import java.awt.Insets;
 import java.awt.LayoutManager;
 import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.JComponent;
 import javax.swing.JLayeredPane;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 import swingx.Marker;
 
 /**
- * The root of {@link swingx.docking.Slice}s, {@link swingx.docking.Dock}s and
- * {@link swingx.docking.Bridge}s.
+ * The root of {@link swingx.docking.Slice}s, {@link swingx.docking.MultiSlice}s,
+ * {@link swingx.docking.Dock}s and {@link swingx.docking.Bridge}s.
  * 
  * @author Sven
  * 
@@ -58,8 +66,54 @@ public class Docking extends JLayeredPane {
 	 */
 	private JComponent root;
 
+	/**
+	 * Count of modifications of the <code>Slice</code> hierarchy.
+	 */
+	private int modifications;
+
 	private Rectangle screenBounds = new Rectangle();
 
+	/**
+	 * Should the visibility of all components be updated.
+	 */
+	private boolean visibilityInvalid = true;
+
+	/**
+	 * Components that changed their visibility since the last update.
+	 */
+	private Set<JComponent> invalidVisibilities = new LinkedHashSet<JComponent>();
+
+	/**
+	 * Docks and bridges that have visible content.
+	 */
+	private Set<JComponent> visibleLeaves = new HashSet<JComponent>();
+
+	/**
+	 * The dock kept visible if there is no visible dock or bridge.
+	 */
+	private Dock keptVisible;
+
+	/**
+	 * Should incremental visibility updates be verified.
+	 */
+	private boolean verifyVisibility = false;
+
+	/**
+	 * Visible docks and bridges as targets of drops, indexed lazily after
+	 * validation.
+	 */
+	private List<JComponent> dropTargets;
+
+	/**
+	 * The bounds of the drop targets.
+	 */
+	private List<Rectangle> dropBounds;
+
+	/**
+	 * Index of the last found drop target.
+	 */
+	private int lastDrop = -1;
+
 	/**
 	 * Constructor.
 	 */
@@ -85,6 +139,57 @@ public class Docking extends JLayeredPane {
 		dropLayer.background = background;
 	}
 
+	/**
+	 * Should markers be painted over a snapshot of this docking taken when a
+	 * drop starts, so that underlying components are not repainted while the
+	 * marker moves.
+	 * 
+	 * @param overlay
+	 *            <code>true</code> to paint markers over a snapshot
+	 */
+	public void setMarkerOverlay(boolean overlay) {
+		dropLayer.overlay = overlay;
+	}
+
+	/**
+	 * Overridden to drop the cached minimum sizes of invalid slices before
+	 * they are laid out, and the index of drop targets, since their bounds
+	 * might have changed.
+	 */
+	@Override
+	protected void validateTree() {
+		dropMinimumSizes(root);
+
+		super.validateTree();
+
+		dropTargets = null;
+	}
+
+	/**
+	 * Drop the cached minimum sizes of the given component and its
+	 * descendants, descending into invalid slices only.
+	 */
+	private void dropMinimumSizes(Component component) {
+		if (component == null || component.isValid()) {
+			return;
+		}
+
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+			slice.dropMinimumSize();
+
+			dropMinimumSizes(slice.getMain());
+			dropMinimumSizes(slice.getRemainder());
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+			multiSlice.dropMinimumSize();
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				dropMinimumSizes(multiSlice.getChild(c));
+			}
+		}
+	}
+
 	/**
 	 * Set the owning dockingPane.
 	 * 
@@ -104,12 +209,29 @@ public class Docking extends JLayeredPane {
 	 * @param root
 	 */
 	public void setRoot(JComponent root) {
+		modifications++;
+
 		this.root = root;
 		add(root);
+
+		invalidateVisibility();
+	}
+
+	/**
+	 * Should each incremental update of visibility be verified against a
+	 * complete update. For debugging purposes only.
+	 * 
+	 * @param verify
+	 *            <code>true</code> if updates should be verified
+	 * @see #updateVisibility()
+	 */
+	public void setVerifyVisibility(boolean verify) {
+		this.verifyVisibility = verify;
 	}
 
 	/**
-	 * Set the bounds on screen.
+	 * Set the bounds on screen - the given bounds are copied, so the caller
+	 * is free to reuse them.
 	 * 
 	 * @param bounds
 	 *            bounds
@@ -118,7 +240,7 @@ public class Docking extends JLayeredPane {
 		if (bounds == null) {
 			throw new IllegalArgumentException("bounds must not be null");
 		}
-		screenBounds = bounds;
+		screenBounds.setBounds(bounds);
 	}
 
 	/**
@@ -140,18 +262,186 @@ public class Docking extends JLayeredPane {
 	}
 
 	/**
-	 * Start a drop.
+	 * Get the count of modifications of the slice hierarchy, e.g. to detect
+	 * whether it was modified since a previous call.
+	 * 
+	 * @return count of modifications
+	 * @see #slice(JComponent, JComponent)
+	 * @see #unslice(JComponent)
+	 */
+	public int getModificationCount() {
+		return modifications;
+	}
+
+	/**
+	 * Start a drop. A snapshot is captured only if this docking is showing,
+	 * it is released again in {@link #endDrop()}.
 	 */
 	public void startDrop() {
+		dropTargets = null;
+
+		if (dropLayer.overlay && isShowing()) {
+			dropLayer.captureSnapshot();
+		}
 		dropLayer.setVisible(true);
 	}
 
+	/**
+	 * Translate the given rectangle from the coordinates of the given
+	 * descendant to the coordinates of this docking and its drop layer - in
+	 * contrast to <code>SwingUtilities.convertRectangle()</code> no objects
+	 * are allocated.
+	 * 
+	 * @param descendant
+	 *            descendant of this docking
+	 * @param rect
+	 *            rectangle to translate
+	 */
+	void translateFrom(Component descendant, Rectangle rect) {
+		for (Component component = descendant; component != this
+				&& component != null; component = component.getParent()) {
+			rect.x += component.getX();
+			rect.y += component.getY();
+		}
+	}
+
+	/**
+	 * Show an outline on top of all other components, e.g. of a divider while
+	 * it is dragged.
+	 * 
+	 * @param outline
+	 *            bounds of the outline or <code>null</code> to remove a
+	 *            previously shown outline
+	 * @see Slice#RESIZE_OUTLINE
+	 */
+	public void setOutline(Rectangle outline) {
+		if (outline == null) {
+			dropLayer.clearMark();
+			dropLayer.setVisible(false);
+		} else {
+			dropLayer.setVisible(true);
+			dropLayer.setMark(outline);
+		}
+	}
+
 	/**
 	 * End a drop.
 	 */
 	public void endDrop() {
 		dropLayer.clearMark();
 		dropLayer.setVisible(false);
+		dropLayer.releaseSnapshot();
+	}
+
+	/**
+	 * Get the target of a drop at the given location, i.e. the deepest visible
+	 * dock, bridge or slice containing the location.
+	 * 
+	 * @param x
+	 *            x coordinate
+	 * @param y
+	 *            y coordinate
+	 * @return target of drop
+	 */
+	public JComponent getDrop(int x, int y) {
+		if (dropTargets == null) {
+			dropTargets = new ArrayList<JComponent>();
+			dropBounds = new ArrayList<Rectangle>();
+			lastDrop = -1;
+
+			indexDrops(root, 0, 0);
+		}
+
+		// most probably still over the last target
+		if (lastDrop != -1 && contains(dropBounds.get(lastDrop), x, y)) {
+			return dropTargets.get(lastDrop);
+		}
+
+		for (int d = 0; d < dropTargets.size(); d++) {
+			if (contains(dropBounds.get(d), x, y)) {
+				lastDrop = d;
+
+				return dropTargets.get(d);
+			}
+		}
+
+		// between children of a slice
+		return getDrop(x, y, root);
+	}
+
+	private void indexDrops(JComponent component, int x, int y) {
+		x += component.getX();
+		y += component.getY();
+
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+
+			if (slice.getMain().isVisible()) {
+				indexDrops(slice.getMain(), x, y);
+			}
+			if (slice.getRemainder().isVisible()) {
+				indexDrops(slice.getRemainder(), x, y);
+			}
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				JComponent child = multiSlice.getChild(c);
+				if (child.isVisible()) {
+					indexDrops(child, x, y);
+				}
+			}
+		} else {
+			dropTargets.add(component);
+			dropBounds.add(new Rectangle(x, y, component.getWidth(), component
+					.getHeight()));
+		}
+	}
+
+	private boolean contains(Rectangle bounds, int x, int y) {
+		return bounds.x < x && bounds.x + bounds.width > x && bounds.y < y
+				&& bounds.y + bounds.height > y;
+	}
+
+	private JComponent getDrop(int x, int y, JComponent component) {
+
+		x -= component.getX();
+		y -= component.getY();
+
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+
+			JComponent main = slice.getMain();
+			JComponent remainder = slice.getRemainder();
+
+			if (main.isVisible() && main.getX() < x
+					&& main.getX() + main.getWidth() > x && main.getY() < y
+					&& main.getY() + main.getHeight() > y) {
+				return getDrop(x, y, main);
+			}
+
+			if (remainder.isVisible() && remainder.getX() < x
+					&& remainder.getX() + remainder.getWidth() > x
+					&& remainder.getY() < y
+					&& remainder.getY() + remainder.getHeight() > y) {
+				return getDrop(x, y, remainder);
+			}
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				JComponent child = multiSlice.getChild(c);
+
+				if (child.isVisible() && child.getX() < x
+						&& child.getX() + child.getWidth() > x
+						&& child.getY() < y
+						&& child.getY() + child.getHeight() > y) {
+					return getDrop(x, y, child);
+				}
+			}
+		}
+
+		return component;
 	}
 
 	/**
@@ -173,6 +463,12 @@ public class Docking extends JLayeredPane {
 
 			getDockableKeys(slice.getMain(), keys);
 			getDockableKeys(slice.getRemainder(), keys);
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				getDockableKeys(multiSlice.getChild(c), keys);
+			}
 		} else if (component instanceof Dock) {
 			Dock dock = (Dock) component;
 
@@ -180,6 +476,66 @@ public class Docking extends JLayeredPane {
 		}
 	}
 
+	/**
+	 * Returns all contained docks.
+	 * 
+	 * @return docks
+	 */
+	public List<Dock> getDocks() {
+		List<Dock> docks = new ArrayList<Dock>();
+
+		getDocks(root, docks);
+
+		return docks;
+	}
+
+	private void getDocks(JComponent component, List<Dock> docks) {
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+
+			getDocks(slice.getMain(), docks);
+			getDocks(slice.getRemainder(), docks);
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				getDocks(multiSlice.getChild(c), docks);
+			}
+		} else if (component instanceof Dock) {
+			docks.add((Dock) component);
+		}
+	}
+
+	/**
+	 * Returns all contained bridges.
+	 * 
+	 * @return bridges
+	 */
+	public List<Bridge> getBridges() {
+		List<Bridge> bridges = new ArrayList<Bridge>();
+
+		getBridges(root, bridges);
+
+		return bridges;
+	}
+
+	private void getBridges(JComponent component, List<Bridge> bridges) {
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+
+			getBridges(slice.getMain(), bridges);
+			getBridges(slice.getRemainder(), bridges);
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				getBridges(multiSlice.getChild(c), bridges);
+			}
+		} else if (component instanceof Bridge) {
+			bridges.add((Bridge) component);
+		}
+	}
+
 	public boolean hasDockable() {
 		return hasDockable(root);
 	}
@@ -194,6 +550,14 @@ public class Docking extends JLayeredPane {
 			if (hasDockable(slice.getRemainder())) {
 				return true;
 			}
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				if (hasDockable(multiSlice.getChild(c))) {
+					return true;
+				}
+			}
 		} else if (component instanceof Dock) {
 			Dock dock = (Dock) component;
 
@@ -202,16 +566,196 @@ public class Docking extends JLayeredPane {
 		return false;
 	}
 
+	/**
+	 * Invalidate the visibility of all components.
+	 */
+	public void invalidateVisibility() {
+		visibilityInvalid = true;
+	}
+
+	/**
+	 * Invalidate the visibility of the given dock or bridge, e.g. because its
+	 * content changed.
+	 * 
+	 * @param component
+	 *            component to invalidate visibility for
+	 */
+	public void invalidateVisibility(JComponent component) {
+		invalidVisibilities.add(component);
+	}
+
+	/**
+	 * Update the visibility of all invalid components and their parental
+	 * slices.
+	 * 
+	 * @return <code>true</code> if any dock or bridge is visible
+	 * @see #invalidateVisibility()
+	 * @see #invalidateVisibility(JComponent)
+	 */
 	public boolean updateVisibility() {
-		boolean hasVisible = hasVisibleDockOrBridge(root);
+		if (visibilityInvalid) {
+			visibilityInvalid = false;
+			invalidVisibilities.clear();
+
+			visibleLeaves.clear();
+			keptVisible = null;
+			if (hasVisibleDockOrBridge(root)) {
+				collectVisibleLeaves(root);
+			} else {
+				keptVisible = getDock(null, root);
+			}
+			updateVisibility(root, keptVisible);
+		} else {
+			for (JComponent component : invalidVisibilities) {
+				if (SwingUtilities.isDescendingFrom(component, this)) {
+					propagateVisibility(component);
+				}
+			}
+			invalidVisibilities.clear();
+
+			Dock keep = null;
+			if (visibleLeaves.isEmpty()) {
+				keep = getDock(null, root);
+			}
+			if (keep != keptVisible) {
+				Dock kept = keptVisible;
+				keptVisible = keep;
+
+				if (kept != null
+						&& SwingUtilities.isDescendingFrom(kept, this)) {
+					propagateVisibility(kept);
+				}
+				if (keep != null) {
+					propagateVisibility(keep);
+				}
+			}
+		}
+
+		boolean hasVisible = !visibleLeaves.isEmpty();
+
+		if (verifyVisibility) {
+			verifyVisibility(hasVisible);
+		}
+
+		return hasVisible;
+	}
+
+	/**
+	 * Update the visibility of the given component and propagate it to all
+	 * parental slices.
+	 * 
+	 * @param component
+	 *            component to update visibility for
+	 */
+	private void propagateVisibility(JComponent component) {
+		boolean visible;
+		if (component instanceof Slice || component instanceof MultiSlice) {
+			visible = isChildVisible(component);
+		} else {
+			if (hasVisibleDockOrBridge(component)) {
+				visibleLeaves.add(component);
+				visible = true;
+			} else {
+				visibleLeaves.remove(component);
+				visible = component == keptVisible;
+			}
+		}
+		component.setVisible(visible);
+
+		Component parent = component.getParent();
+		while (parent instanceof Slice || parent instanceof MultiSlice) {
+			JComponent slice = (JComponent) parent;
+
+			slice.setVisible(isChildVisible(slice));
+
+			parent = slice.getParent();
+		}
+	}
+
+	/**
+	 * Test whether any child of the given slice or multi slice is visible.
+	 */
+	private boolean isChildVisible(JComponent component) {
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+
+			return slice.getMain().isVisible()
+					|| slice.getRemainder().isVisible();
+		} else {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				if (multiSlice.getChild(c).isVisible()) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private void collectVisibleLeaves(JComponent component) {
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+
+			collectVisibleLeaves(slice.getMain());
+			collectVisibleLeaves(slice.getRemainder());
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				collectVisibleLeaves(multiSlice.getChild(c));
+			}
+		} else if (hasVisibleDockOrBridge(component)) {
+			visibleLeaves.add(component);
+		}
+	}
+
+	/**
+	 * Verify the current visibility against a complete update.
+	 * 
+	 * @param hasVisible
+	 *            the incrementally determined visibility
+	 */
+	private void verifyVisibility(boolean hasVisible) {
+		if (hasVisible != hasVisibleDockOrBridge(root)) {
+			throw new IllegalStateException("visible dock or bridge "
+					+ (hasVisible ? "expected" : "unexpected"));
+		}
 
 		Dock dock = null;
 		if (!hasVisible) {
 			dock = getDock(null, root);
 		}
-		updateVisibility(root, dock);
+		verifyVisibility(root, dock);
+	}
 
-		return hasVisible;
+	private boolean verifyVisibility(JComponent component, Dock keepVisible) {
+		boolean visible = false;
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+
+			visible = verifyVisibility(slice.getMain(), keepVisible)
+					| verifyVisibility(slice.getRemainder(), keepVisible);
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				visible |= verifyVisibility(multiSlice.getChild(c),
+						keepVisible);
+			}
+		} else if (component instanceof Dock) {
+			visible = component == keepVisible
+					|| ((Dock) component).getVisibleDockableCount() > 0;
+		} else if (component instanceof Bridge) {
+			visible = ((Bridge) component).getBridged() != null;
+		}
+
+		if (visible != component.isVisible()) {
+			throw new IllegalStateException("invalid visibility of "
+					+ component);
+		}
+
+		return visible;
 	}
 
 	protected void updateVisibility(JComponent component, Dock keepVisible) {
@@ -223,6 +767,14 @@ public class Docking extends JLayeredPane {
 
 			slice.setVisible(slice.getMain().isVisible()
 					|| slice.getRemainder().isVisible());
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				updateVisibility(multiSlice.getChild(c), keepVisible);
+			}
+
+			multiSlice.setVisible(isChildVisible(multiSlice));
 		} else if (component instanceof Dock) {
 			Dock dock = (Dock) component;
 
@@ -245,6 +797,14 @@ public class Docking extends JLayeredPane {
 			if (hasVisibleDockOrBridge(slice.getRemainder())) {
 				return true;
 			}
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				if (hasVisibleDockOrBridge(multiSlice.getChild(c))) {
+					return true;
+				}
+			}
 		} else if (component instanceof Dock) {
 			Dock dock = (Dock) component;
 
@@ -262,6 +822,8 @@ public class Docking extends JLayeredPane {
 	}
 
 	public Slice slice(JComponent child, JComponent main) {
+		modifications++;
+
 		Slice newSlice = this.dockingPane.createSlice();
 
 		if (child == root) {
@@ -276,47 +838,271 @@ public class Docking extends JLayeredPane {
 			repaint();
 			revalidate();
 		} else {
-			Slice parentSlice = getSlice(child);
-			parentSlice.replace(child, newSlice);
+			replace(getSlice(child), child, newSlice);
 
 			newSlice.setMain(main);
 			newSlice.setRemainder(child);
 		}
 
+		invalidateVisibility(main);
+
 		return newSlice;
 	}
 
 	public void unslice(JComponent child) {
+		modifications++;
+
+		visibleLeaves.remove(child);
+		if (child == keptVisible) {
+			keptVisible = null;
+		}
+
 		if (child == root) {
 			remove(root);
 
 			root = dockingPane.createDock();
 			add(root);
 
+			invalidateVisibility(root);
+
 			repaint();
 			revalidate();
 		} else {
-			Slice slice = getSlice(child);
+			JComponent slice = getSlice(child);
+
+			JComponent other;
+			if (slice instanceof MultiSlice) {
+				MultiSlice multiSlice = (MultiSlice) slice;
+
+				multiSlice.removeChild(child);
+				if (multiSlice.getChildCount() > 1) {
+					invalidateVisibility(multiSlice);
+					return;
+				}
+				other = multiSlice.getChild(0);
+				multiSlice.removeChild(other);
+			} else {
+				other = ((Slice) slice).getOther(child);
+			}
 
-			JComponent other = slice.getOther(child);
 			if (slice == root) {
 				remove(root);
 
 				root = other;
 				add(other);
 			} else {
-				Slice sliceSlice = getSlice(slice);
-				sliceSlice.replace(slice, other);
+				replace(getSlice(slice), slice, other);
+			}
+
+			invalidateVisibility(other);
+		}
+	}
+
+	/**
+	 * Normalize the slice hierarchy, i.e. replace all nested slices with equal
+	 * orientation with a {@link MultiSlice}.
+	 * <br>
+	 * The owning {@link DockingPane} normalizes when its dockings are set,
+	 * e.g. on load by a {@link Persister}, and after a drop sliced a dock.
+	 * Docks and bridges placed by its {@link Placement} are not normalized,
+	 * since this walks the whole hierarchy - call this method explicitly after
+	 * putting many of them.
+	 */
+	public void normalize() {
+		modifications++;
+
+		JComponent newRoot = normalize(root);
+		if (newRoot != root) {
+			remove(root);
+
+			root = newRoot;
+			add(root);
+		}
+
+		invalidateVisibility();
+
+		repaint();
+		revalidate();
+	}
+
+	private JComponent normalize(JComponent component) {
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+			boolean vertical = isVertical(slice);
+
+			List<Slice> slices = new ArrayList<Slice>();
+			List<JComponent> parts = new ArrayList<JComponent>();
+			List<Float> sizes = new ArrayList<Float>();
+			flatten(slice, vertical, 1.0f, slices, parts, sizes);
+
+			for (Slice candidate : slices) {
+				candidate.setMain(null);
+				candidate.setRemainder(null);
+			}
+
+			if (parts.size() == 2) {
+				slice.setMain(normalize(parts.get(0)));
+				slice.setRemainder(normalize(parts.get(1)));
+				slice.setOrientation(vertical ? SwingConstants.TOP
+						: SwingConstants.LEFT);
+				slice.setWeight(sizes.get(0));
+				return slice;
+			}
+
+			MultiSlice multiSlice = dockingPane.createMultiSlice();
+			multiSlice.setOrientation(vertical ? SwingConstants.VERTICAL
+					: SwingConstants.HORIZONTAL);
+			multiSlice.setSpacing(slice.getSpacing());
+			for (int p = 0; p < parts.size(); p++) {
+				multiSlice.addChild(normalize(parts.get(p)), sizes.get(p));
+			}
+			return multiSlice;
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				JComponent child = multiSlice.getChild(c);
+				JComponent newChild = normalize(child);
+				if (newChild != child) {
+					multiSlice.replace(child, newChild);
+				}
+			}
+		}
+		return component;
+	}
+
+	/**
+	 * Rebalance the slice hierarchy, i.e. restructure all nested slices with
+	 * equal orientation to keep their depth logarithmic. The arrangement of
+	 * contained docks and bridges is kept (apart from the spacing of slices),
+	 * as long as all of them are visible.
+	 */
+	public void rebalance() {
+		modifications++;
+
+		rebalance(root);
+
+		invalidateVisibility();
+
+		repaint();
+		revalidate();
+	}
+
+	private void rebalance(JComponent component) {
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+			boolean vertical = isVertical(slice);
+
+			List<Slice> slices = new ArrayList<Slice>();
+			List<JComponent> parts = new ArrayList<JComponent>();
+			List<Float> sizes = new ArrayList<Float>();
+			flatten(slice, vertical, 1.0f, slices, parts, sizes);
+
+			for (Slice candidate : slices) {
+				candidate.setMain(null);
+				candidate.setRemainder(null);
+			}
+
+			for (JComponent part : parts) {
+				rebalance(part);
+			}
+
+			build(parts, sizes, 0, parts.size(), vertical, slices.iterator());
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				rebalance(multiSlice.getChild(c));
+			}
+		}
+	}
+
+	/**
+	 * Flatten all nested slices with the given orientation into their parts.
+	 */
+	private void flatten(JComponent component, boolean vertical, float size,
+			List<Slice> slices, List<JComponent> parts, List<Float> sizes) {
+		if (component instanceof Slice
+				&& isVertical((Slice) component) == vertical) {
+			Slice slice = (Slice) component;
+			slices.add(slice);
+
+			JComponent first;
+			JComponent second;
+			float weight;
+			if (slice.getOrientation() == SwingConstants.TOP
+					|| slice.getOrientation() == SwingConstants.LEFT) {
+				first = slice.getMain();
+				second = slice.getRemainder();
+				weight = slice.getWeight();
+			} else {
+				first = slice.getRemainder();
+				second = slice.getMain();
+				weight = 1.0f - slice.getWeight();
+			}
+
+			flatten(first, vertical, size * weight, slices, parts, sizes);
+			flatten(second, vertical, size * (1.0f - weight), slices, parts,
+					sizes);
+		} else {
+			parts.add(component);
+			sizes.add(size);
+		}
+	}
+
+	/**
+	 * Build a balanced hierarchy of the given slices.
+	 */
+	private JComponent build(List<JComponent> parts, List<Float> sizes,
+			int from, int to, boolean vertical, Iterator<Slice> slices) {
+		if (to - from == 1) {
+			return parts.get(from);
+		}
+
+		Slice slice = slices.next();
+
+		int middle = (from + to) / 2;
+		float first = 0.0f;
+		float total = 0.0f;
+		for (int p = from; p < to; p++) {
+			if (p < middle) {
+				first += sizes.get(p);
 			}
+			total += sizes.get(p);
 		}
+
+		slice.setOrientation(vertical ? SwingConstants.TOP
+				: SwingConstants.LEFT);
+		slice.setWeight(total > 0.0f ? first / total : 0.5f);
+		slice.setMain(build(parts, sizes, from, middle, vertical, slices));
+		slice.setRemainder(build(parts, sizes, middle, to, vertical, slices));
+
+		return slice;
 	}
 
-	private Slice getSlice(JComponent component) {
+	private boolean isVertical(Slice slice) {
+		return slice.getOrientation() == SwingConstants.TOP
+				|| slice.getOrientation() == SwingConstants.BOTTOM;
+	}
+
+	/**
+	 * Get the slice or multi slice containing the given component.
+	 */
+	private JComponent getSlice(JComponent component) {
 		Component parent = component.getParent();
-		while (!(parent instanceof Slice)) {
+		while (!(parent instanceof Slice || parent instanceof MultiSlice)) {
 			parent = parent.getParent();
 		}
-		return (Slice) parent;
+		return (JComponent) parent;
+	}
+
+	private void replace(JComponent slice, JComponent child,
+			JComponent newChild) {
+		if (slice instanceof MultiSlice) {
+			((MultiSlice) slice).replace(child, newChild);
+		} else {
+			((Slice) slice).replace(child, newChild);
+		}
 	}
 
 	public Bridge getBridge(Object key) {
@@ -339,6 +1125,12 @@ public class Docking extends JLayeredPane {
 			if (bridge == null) {
 				bridge = getBridge(key, slice.getRemainder());
 			}
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; bridge == null && c < multiSlice.getChildCount(); c++) {
+				bridge = getBridge(key, multiSlice.getChild(c));
+			}
 		}
 		return bridge;
 	}
@@ -363,6 +1155,12 @@ public class Docking extends JLayeredPane {
 			if (dock == null) {
 				dock = getDock(key, slice.getRemainder());
 			}
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			for (int c = 0; dock == null && c < multiSlice.getChildCount(); c++) {
+				dock = getDock(key, multiSlice.getChild(c));
+			}
 		}
 
 		return dock;
@@ -445,17 +1243,99 @@ public class Docking extends JLayeredPane {
 		private BasicStroke stroke = new BasicStroke(2.0f);
 
 		/**
-		 * The current marker.
+		 * The current marker, reused while marking.
 		 */
 		private Marker marker;
 
+		/**
+		 * The bounds of the mark.
+		 */
+		private Rectangle markBounds = new Rectangle();
+
+		/**
+		 * Should markers be painted over a snapshot.
+		 */
+		private boolean overlay = false;
+
+		/**
+		 * The snapshot of the docking while dropping, preferably an
+		 * accelerated <code>VolatileImage</code>.
+		 */
+		private Image snapshot;
+
 		private DropLayer() {
 			setVisible(false);
 		}
 
+		/**
+		 * Capture a snapshot of the docking and become opaque, so repaints
+		 * of markers no longer reach underlying components.
+		 */
+		private void captureSnapshot() {
+			int width = getWidth();
+			int height = getHeight();
+			if (width <= 0 || height <= 0) {
+				return;
+			}
+
+			VolatileImage image = Docking.this.createVolatileImage(width,
+					height);
+			if (image == null) {
+				// not displayable or not supported
+				snapshot = new BufferedImage(width, height,
+						BufferedImage.TYPE_INT_RGB);
+				paintSnapshot(snapshot);
+			} else {
+				do {
+					if (image.validate(getGraphicsConfiguration()) == VolatileImage.IMAGE_INCOMPATIBLE) {
+						image.flush();
+						image = Docking.this.createVolatileImage(width, height);
+					}
+					paintSnapshot(image);
+				} while (image.contentsLost());
+				snapshot = image;
+			}
+
+			setOpaque(true);
+		}
+
+		private void paintSnapshot(Image image) {
+			Graphics2D g = (Graphics2D) image.getGraphics();
+
+			g.setColor(Docking.this.getBackground());
+			g.fillRect(0, 0, getWidth(), getHeight());
+
+			g.translate(-getX(), -getY());
+			Docking.this.paint(g);
+
+			g.dispose();
+		}
+
+		private void releaseSnapshot() {
+			if (snapshot != null) {
+				snapshot.flush();
+				snapshot = null;
+			}
+
+			setOpaque(false);
+		}
+
 		protected void paintComponent(Graphics g) {
 			super.paintComponent(g);
 
+			if (snapshot != null) {
+				if (snapshot instanceof VolatileImage
+						&& ((VolatileImage) snapshot).contentsLost()) {
+					// cannot be restored without painting the docking
+					// while painting this layer, so fall back to painting
+					// of underlying components
+					releaseSnapshot();
+					Docking.this.repaint();
+				} else {
+					g.drawImage(snapshot, 0, 0, null);
+				}
+			}
+
 			if (marker != null) {
 				marker.paint((Graphics2D) g);
 			}
@@ -469,25 +1349,36 @@ public class Docking extends JLayeredPane {
 		}
 
 		public void setMark(Rectangle rect, int orientation, float weight) {
-			clearMark();
-
 			if (rect == null) {
 				throw new IllegalArgumentException("rect must not be null");
 			}
 
+			markBounds.setBounds(rect);
 			if (orientation == SwingConstants.TOP) {
-				rect.height = (int) (rect.height * weight);
+				markBounds.height = (int) (rect.height * weight);
 			} else if (orientation == SwingConstants.BOTTOM) {
-				rect.y = rect.y + rect.height - (int) (rect.height * weight);
-				rect.height = (int) (rect.height * weight);
+				markBounds.y = rect.y + rect.height - (int) (rect.height * weight);
+				markBounds.height = (int) (rect.height * weight);
 			} else if (orientation == SwingConstants.LEFT) {
-				rect.width = (int) (rect.width * weight);
+				markBounds.width = (int) (rect.width * weight);
 			} else if (orientation == SwingConstants.RIGHT) {
-				rect.x = rect.x + rect.width - (int) (rect.width * weight);
-				rect.width = (int) (rect.width * weight);
+				markBounds.x = rect.x + rect.width - (int) (rect.width * weight);
+				markBounds.width = (int) (rect.width * weight);
 			}
 
-			marker = Marker.create(this, xor, background, foreground, stroke, rect);
+			setMark(markBounds);
+		}
+
+		public void setMark(Rectangle rect) {
+			if (rect == null) {
+				throw new IllegalArgumentException("rect must not be null");
+			}
+
+			if (marker == null) {
+				marker = Marker.create(this, xor, background, foreground, stroke, rect);
+			} else {
+				marker.setBounds(rect);
+			}
 		}
 	}
 
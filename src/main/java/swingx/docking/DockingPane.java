@@ -46,9 +46,13 @@ import java.awt.event.WindowListener;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 import javax.swing.JComponent;
 import javax.swing.JDialog;
@@ -58,9 +62,11 @@ import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import swingx.dnd.ObjectTransferable;
 import swingx.docking.dock.TabbedDock;
+import swingx.docking.placement.BalancedPlacement;
 
 /**
  * A container for {@link Dockable}s, that can be dragged and stacked. To dock
@@ -99,10 +105,25 @@ import swingx.docking.dock.TabbedDock;
  * dockingPane.putComponent(&quot;KEY&quot;, component);
  * </pre>
  * 
+ * Multiple changes can be combined into a single update, deferring the
+ * adjustment of the layout until the last change was made:
+ * 
+ * <pre>
+ * dockingPane.beginUpdate();
+ * try {
+ * 	dockingPane.putDockable(&quot;KEY1&quot;, dockable1);
+ * 	dockingPane.putDockable(&quot;KEY2&quot;, dockable2);
+ * } finally {
+ * 	dockingPane.endUpdate();
+ * }
+ * </pre>
+ * 
  * @see #putDockable(Object, Dockable)
  * @see #removeDockable(Object)
  * @see #putComponent(Object, JComponent)
  * @see #removeComponent(Object)
+ * @see #beginUpdate()
+ * @see #endUpdate()
  */
 public class DockingPane extends JPanel {
 
@@ -124,10 +145,76 @@ public class DockingPane extends JPanel {
 
 	private List<Docking> dockings = new ArrayList<Docking>();
 
+	/**
+	 * The placement of new docks and bridges.
+	 */
+	private Placement placement = new BalancedPlacement();
+
+	/**
+	 * The mode of resizing of created slices.
+	 */
+	private int resizeMode = Slice.RESIZE_CONTINUOUS;
+
 	private Map<Docking, JDialog> dockingToDialog = new HashMap<Docking, JDialog>();
 
 	private Map<JDialog, Docking> dialogToDocking = new HashMap<JDialog, Docking>();
 
+	/**
+	 * Hidden dialogs kept for reuse, mapped to the time they were released,
+	 * oldest first.
+	 */
+	private LinkedHashMap<JDialog, Long> dialogPool = new LinkedHashMap<JDialog, Long>();
+
+	/**
+	 * The maximum number of pooled dialogs.
+	 */
+	private int dialogPoolSize = 2;
+
+	/**
+	 * Milliseconds a pooled dialog is kept before it is dismissed.
+	 */
+	private int dialogIdleTime = 30000;
+
+	/**
+	 * Timer to evict idle dialogs from the pool.
+	 */
+	private Timer evictionTimer;
+
+	/**
+	 * Index of keys to the docks of all contained dockings.
+	 */
+	private Map<Object, Dock> keyToDock = new HashMap<Object, Dock>();
+
+	/**
+	 * Reverse index of {@link #keyToDock}.
+	 */
+	private Map<Dock, List<Object>> dockToKeys = new HashMap<Dock, List<Object>>();
+
+	/**
+	 * Index of keys to the bridges of all contained dockings.
+	 */
+	private Map<Object, Bridge> keyToBridge = new HashMap<Object, Bridge>();
+
+	/**
+	 * Reverse index of {@link #keyToBridge}.
+	 */
+	private Map<Bridge, Object> bridgeToKey = new HashMap<Bridge, Object>();
+
+	/**
+	 * Nesting depth of {@link #beginUpdate()}.
+	 */
+	private int updating;
+
+	/**
+	 * Docks and bridges changed while updating.
+	 */
+	private Set<JComponent> changedComponents = new LinkedHashSet<JComponent>();
+
+	/**
+	 * Dockings changed while updating.
+	 */
+	private Set<Docking> changedDockings = new LinkedHashSet<Docking>();
+
 	/**
 	 * Create a new dockingPane.
 	 */
@@ -154,6 +241,8 @@ public class DockingPane extends JPanel {
 			updateVisibility(docking);
 		}
 
+		evictDialogs(0);
+
 		super.removeNotify();
 	}
 
@@ -174,14 +263,30 @@ public class DockingPane extends JPanel {
 				SwingUtilities.updateComponentTreeUI(dialog);
 			}
 		}
+		for (JDialog dialog : dialogPool.keySet()) {
+			SwingUtilities.updateComponentTreeUI(dialog);
+		}
 
 		SwingUtilities.updateComponentTreeUI(popupHandler.popupMenu);
 	}
 
 	protected List<Docking> getDockings() {
+		dialogHandler.flushScreenBounds();
+
 		return Collections.unmodifiableList(dockings);
 	}
 
+	/**
+	 * Create an immutable snapshot of the current layout, e.g. to be saved
+	 * off the event dispatch thread.
+	 * 
+	 * @return snapshot of layout
+	 * @see Persister#save(java.util.concurrent.Executor)
+	 */
+	public Layout createSnapshot() {
+		return Layout.create(getDockings());
+	}
+
 	protected void setDockings(List<Docking> dockings) {
 		if (dockings == null || dockings.size() == 0) {
 			throw new IllegalArgumentException("dockings must not be empty");
@@ -189,11 +294,29 @@ public class DockingPane extends JPanel {
 
 		remove(this.dockings.get(0));
 
+		for (Docking docking : this.dockings) {
+			if (!dockings.contains(docking)) {
+				hideDialog(docking);
+			}
+		}
+
 		this.dockings = new ArrayList<Docking>(dockings);
 		add(dockings.get(0));
 
 		for (Docking docking : dockings) {
-			updateVisibility(docking);
+			docking.normalize();
+		}
+
+		keyToDock.clear();
+		dockToKeys.clear();
+		keyToBridge.clear();
+		bridgeToKey.clear();
+		for (Docking docking : dockings) {
+			index(docking);
+		}
+
+		for (Docking docking : dockings) {
+			dockingChanged(docking);
 		}
 
 		keys.clear();
@@ -202,6 +325,183 @@ public class DockingPane extends JPanel {
 		revalidate();
 	}
 
+	/**
+	 * Set the placement of new docks and bridges.
+	 * 
+	 * @param placement
+	 *            placement to use
+	 */
+	public void setPlacement(Placement placement) {
+		if (placement == null) {
+			throw new IllegalArgumentException("placement must not be null");
+		}
+		this.placement = placement;
+	}
+
+	/**
+	 * Get the placement of new docks and bridges.
+	 * 
+	 * @return placement
+	 */
+	public Placement getPlacement() {
+		return placement;
+	}
+
+	/**
+	 * Set the mode of resizing for slices created from now on.
+	 * 
+	 * @param resizeMode
+	 *            mode of resizing, {@link Slice#RESIZE_CONTINUOUS},
+	 *            {@link Slice#RESIZE_THROTTLED} or {@link Slice#RESIZE_OUTLINE}
+	 * @see Slice#setResizeMode(int)
+	 * @see MultiSlice#setResizeMode(int)
+	 */
+	public void setResizeMode(int resizeMode) {
+		if (resizeMode != Slice.RESIZE_CONTINUOUS
+				&& resizeMode != Slice.RESIZE_THROTTLED
+				&& resizeMode != Slice.RESIZE_OUTLINE) {
+			throw new IllegalArgumentException("unknown resize mode '"
+					+ resizeMode + "'");
+		}
+		this.resizeMode = resizeMode;
+	}
+
+	/**
+	 * Get the mode of resizing for created slices.
+	 * 
+	 * @return mode of resizing
+	 */
+	public int getResizeMode() {
+		return resizeMode;
+	}
+
+	/**
+	 * Set the maximum number of hidden dialogs kept for reuse when floating
+	 * dockings are closed, <code>0</code> disables pooling.
+	 * 
+	 * @param dialogPoolSize
+	 *            maximum number of pooled dialogs
+	 */
+	public void setDialogPoolSize(int dialogPoolSize) {
+		if (dialogPoolSize < 0) {
+			throw new IllegalArgumentException(
+					"dialogPoolSize must not be negative");
+		}
+		this.dialogPoolSize = dialogPoolSize;
+
+		while (dialogPool.size() > dialogPoolSize) {
+			JDialog dialog = dialogPool.keySet().iterator().next();
+			dialogPool.remove(dialog);
+			dismissDialog(dialog);
+		}
+	}
+
+	/**
+	 * Get the maximum number of pooled dialogs.
+	 * 
+	 * @return maximum number of pooled dialogs
+	 */
+	public int getDialogPoolSize() {
+		return dialogPoolSize;
+	}
+
+	/**
+	 * Set the time a pooled dialog is kept before it is dismissed.
+	 * 
+	 * @param dialogIdleTime
+	 *            idle time in milliseconds
+	 */
+	public void setDialogIdleTime(int dialogIdleTime) {
+		if (dialogIdleTime < 0) {
+			throw new IllegalArgumentException(
+					"dialogIdleTime must not be negative");
+		}
+		this.dialogIdleTime = dialogIdleTime;
+
+		if (evictionTimer != null) {
+			evictionTimer.stop();
+			evictDialogs(dialogIdleTime);
+		}
+	}
+
+	/**
+	 * Get the time a pooled dialog is kept before it is dismissed.
+	 * 
+	 * @return idle time in milliseconds
+	 */
+	public int getDialogIdleTime() {
+		return dialogIdleTime;
+	}
+
+	/**
+	 * Begin an update, all changes to the layout are deferred until the
+	 * outermost update is ended.
+	 * 
+	 * @see #endUpdate()
+	 */
+	public void beginUpdate() {
+		updating++;
+	}
+
+	/**
+	 * End an update. If this is the outermost update, the layout is adjusted
+	 * to all changes since the corresponding call to {@link #beginUpdate()}.
+	 * 
+	 * @see #beginUpdate()
+	 */
+	public void endUpdate() {
+		if (updating == 0) {
+			throw new IllegalStateException("not updating");
+		}
+
+		updating--;
+		if (updating > 0) {
+			return;
+		}
+
+		Set<Docking> dockings = new LinkedHashSet<Docking>(changedDockings);
+		changedDockings.clear();
+
+		List<JComponent> components = new ArrayList<JComponent>(
+				changedComponents);
+		changedComponents.clear();
+
+		for (JComponent component : components) {
+			Docking docking = getDocking(component);
+			if (this.dockings.contains(docking)) {
+				if (component instanceof Dock) {
+					if (!((Dock) component).hasDockable()) {
+						docking.unslice(component);
+					}
+				} else if (component instanceof Bridge) {
+					if (!((Bridge) component).hasBridged()) {
+						docking.unslice(component);
+					}
+				}
+				dockings.add(docking);
+			}
+		}
+
+		for (Docking docking : dockings) {
+			if (this.dockings.contains(docking)) {
+				updateVisibility(docking);
+			}
+		}
+
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Is an update in progress.
+	 * 
+	 * @return <code>true</code> if updating
+	 * @see #beginUpdate()
+	 */
+	public boolean isUpdating() {
+		return updating > 0;
+	}
+
 	/**
 	 * Test if a dockable under the given key is contained
 	 * 
@@ -210,12 +510,7 @@ public class DockingPane extends JPanel {
 	 * @return <code>true</code> if dockable is contained
 	 */
 	public boolean containsDockable(Object key) {
-		for (Docking docking : dockings) {
-			if (docking.getDock(key) != null) {
-				return true;
-			}
-		}
-		return false;
+		return keyToDock.containsKey(key);
 	}
 
 	/**
@@ -242,12 +537,9 @@ public class DockingPane extends JPanel {
 	 *         the given key
 	 */
 	public Dockable getDockable(Object key) {
-
-		for (Docking docking : dockings) {
-			Dock dock = docking.getDock(key);
-			if (dock != null) {
-				return dock.getDockable(key);
-			}
+		Dock dock = keyToDock.get(key);
+		if (dock != null) {
+			return dock.getDockable(key);
 		}
 		return null;
 	}
@@ -265,14 +557,7 @@ public class DockingPane extends JPanel {
 			throw new IllegalArgumentException("key must not be null");
 		}
 
-		Dock dock = null;
-		for (Docking docking : dockings) {
-			dock = docking.getDock(key);
-			if (dock != null) {
-				break;
-			}
-		}
-
+		Dock dock = keyToDock.get(key);
 		if (dock == null) {
 			Docking docking = dockings.get(0);
 
@@ -280,7 +565,7 @@ public class DockingPane extends JPanel {
 			if (dock == null) {
 				dock = createDock();
 
-				docking.slice(docking.getRoot(), dock);
+				docking.slice(placement.getTarget(docking, dock), dock);
 			}
 		}
 
@@ -342,13 +627,7 @@ public class DockingPane extends JPanel {
 
 		Dockable dockable = null;
 
-		Dock dock = null;
-		for (Docking docking : dockings) {
-			dock = docking.getDock(key);
-			if (dock != null) {
-				break;
-			}
-		}
+		Dock dock = keyToDock.get(key);
 		if (dock != null) {
 			dockable = dock.removeDockable(key);
 		}
@@ -371,11 +650,9 @@ public class DockingPane extends JPanel {
 	 *         assiciated with the given key
 	 */
 	public JComponent getComponent(Object key) {
-		for (Docking docking : dockings) {
-			Bridge bridge = docking.getBridge(key);
-			if (bridge != null) {
-				return bridge.getBridged();
-			}
+		Bridge bridge = keyToBridge.get(key);
+		if (bridge != null) {
+			return bridge.getBridged();
 		}
 		return null;
 	}
@@ -393,19 +670,12 @@ public class DockingPane extends JPanel {
 			throw new IllegalArgumentException("key must not be null");
 		}
 
-		Bridge bridge = null;
-		for (Docking docking : dockings) {
-			bridge = docking.getBridge(key);
-			if (bridge != null) {
-				break;
-			}
-		}
-
+		Bridge bridge = keyToBridge.get(key);
 		if (bridge == null) {
 			Docking docking = dockings.get(0);
 
 			bridge = createBridge();
-			docking.slice(docking.getRoot(), bridge);
+			docking.slice(placement.getTarget(docking, bridge), bridge);
 		}
 		
 		JComponent old = bridge.setBridged(key, component);
@@ -428,13 +698,7 @@ public class DockingPane extends JPanel {
 
 		JComponent component = null;
 
-		Bridge bridge = null;
-		for (Docking docking : dockings) {
-			bridge = docking.getBridge(key);
-			if (bridge != null) {
-				break;
-			}
-		}
+		Bridge bridge = keyToBridge.get(key);
 		if (bridge != null) {
 			component = bridge.clearBridged();
 		}
@@ -460,7 +724,8 @@ public class DockingPane extends JPanel {
 	}
 
 	/**
-	 * Factory method to create a dialog to host a docking.
+	 * Factory method to create a dialog to host a docking. Hidden dialogs are
+	 * pooled and reused, see {@link #setDialogPoolSize(int)}.
 	 * 
 	 * @return dialog created dialog
 	 * @see #dismissDialog(JDialog)
@@ -502,9 +767,25 @@ public class DockingPane extends JPanel {
 	 */
 	public final Slice createSlice() {
 		Slice slice = createSliceImpl();
+
+		slice.setResizeMode(resizeMode);
+
 		return slice;
 	}
 
+	/**
+	 * Factory method to create a new multi slice.
+	 * 
+	 * @return multi slice
+	 */
+	public final MultiSlice createMultiSlice() {
+		MultiSlice multiSlice = createMultiSliceImpl();
+
+		multiSlice.setResizeMode(resizeMode);
+
+		return multiSlice;
+	}
+
 	/**
 	 * Factory method to create a new dock.
 	 * 
@@ -550,6 +831,10 @@ public class DockingPane extends JPanel {
 		return new Slice();
 	}
 
+	protected MultiSlice createMultiSliceImpl() {
+		return new MultiSlice();
+	}
+
 	protected Dock createDockImpl() {
 		return new TabbedDock(this);
 	}
@@ -561,19 +846,123 @@ public class DockingPane extends JPanel {
 	protected void bridgeChanged(Bridge bridge) {
 		Docking docking = getDocking(bridge);
 		if (dockings.contains(docking)) {
-			if (!bridge.hasBridged()) {
-				docking.unslice(bridge);
+			index(bridge);
+			docking.invalidateVisibility(bridge);
+
+			if (updating > 0) {
+				changedComponents.add(bridge);
+			} else {
+				if (!bridge.hasBridged()) {
+					docking.unslice(bridge);
+				}
+				updateVisibility(docking);
 			}
-			updateVisibility(docking);
+		} else {
+			unindex(bridge);
 		}
 	}
 
 	protected void dockChanged(Dock dock) {
 		Docking docking = getDocking(dock);
 		if (dockings.contains(docking)) {
-			if (!dock.hasDockable()) {
-				docking.unslice(dock);
+			index(dock);
+			docking.invalidateVisibility(dock);
+
+			if (updating > 0) {
+				changedComponents.add(dock);
+			} else {
+				if (!dock.hasDockable()) {
+					docking.unslice(dock);
+				}
+				updateVisibility(docking);
+			}
+		} else {
+			unindex(dock);
+		}
+	}
+
+	/**
+	 * Index all docks and bridges of the given docking.
+	 * 
+	 * @param docking
+	 *            docking to index
+	 */
+	private void index(Docking docking) {
+		for (Dock dock : docking.getDocks()) {
+			index(dock);
+		}
+		for (Bridge bridge : docking.getBridges()) {
+			index(bridge);
+		}
+	}
+
+	/**
+	 * Remove all docks and bridges of the given docking from the index.
+	 * 
+	 * @param docking
+	 *            docking to remove from index
+	 */
+	private void unindex(Docking docking) {
+		for (Dock dock : docking.getDocks()) {
+			unindex(dock);
+		}
+		for (Bridge bridge : docking.getBridges()) {
+			unindex(bridge);
+		}
+	}
+
+	private void index(Dock dock) {
+		unindex(dock);
+
+		List<Object> keys = dock.getDockableKeys();
+		if (!keys.isEmpty()) {
+			for (Object key : keys) {
+				keyToDock.put(key, dock);
 			}
+			dockToKeys.put(dock, keys);
+		}
+	}
+
+	private void unindex(Dock dock) {
+		List<Object> keys = dockToKeys.remove(dock);
+		if (keys != null) {
+			for (Object key : keys) {
+				if (keyToDock.get(key) == dock) {
+					keyToDock.remove(key);
+				}
+			}
+		}
+	}
+
+	private void index(Bridge bridge) {
+		unindex(bridge);
+
+		if (bridge.hasBridged()) {
+			Object key = bridge.getKey();
+
+			keyToBridge.put(key, bridge);
+			bridgeToKey.put(bridge, key);
+		}
+	}
+
+	private void unindex(Bridge bridge) {
+		Object key = bridgeToKey.remove(bridge);
+		if (key != null && keyToBridge.get(key) == bridge) {
+			keyToBridge.remove(key);
+		}
+	}
+
+	/**
+	 * Update the visibility of the given docking, deferred if currently
+	 * updating.
+	 * 
+	 * @param docking
+	 *            the changed docking
+	 */
+	private void dockingChanged(Docking docking) {
+		if (updating > 0) {
+			changedDockings.add(docking);
+		} else {
 			updateVisibility(docking);
 		}
 	}
@@ -586,7 +975,7 @@ public class DockingPane extends JPanel {
 				if (isDisplayable()) {
 					JDialog dialog = dockingToDialog.get(docking);
 					if (dialog == null) {
-						dialog = createDialog();
+						dialog = acquireDialog();
 						dockingToDialog.put(docking, dialog);
 						dialogToDocking.put(dialog, docking);
 
@@ -605,25 +994,127 @@ public class DockingPane extends JPanel {
 					}
 				}
 			} else {
-				JDialog dialog = dockingToDialog.get(docking);
-				if (dialog != null) {
-					dialog.setVisible(false);
-					dialog.removeComponentListener(dialogHandler);
-					dialog.removeWindowListener(dialogHandler);
-					dialog.getContentPane().remove(docking);
-
-					dockingToDialog.remove(docking);
-					dialogToDocking.remove(dialog);
-					dismissDialog(dialog);
-				}
+				hideDialog(docking);
 
 				if (!docking.hasDockable()) {
 					dockings.remove(docking);
+					unindex(docking);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Hide the dialog of the given docking if currently shown.
+	 * 
+	 * @param docking
+	 *            docking to hide dialog for
+	 */
+	private void hideDialog(Docking docking) {
+		JDialog dialog = dockingToDialog.get(docking);
+		if (dialog != null) {
+			dialogHandler.flushScreenBounds(docking);
+
+			dialog.setVisible(false);
+			dialog.removeComponentListener(dialogHandler);
+			dialog.removeWindowListener(dialogHandler);
+			dialog.getContentPane().remove(docking);
+
+			dockingToDialog.remove(docking);
+			dialogToDocking.remove(dialog);
+			releaseDialog(dialog);
+		}
+	}
+
+	/**
+	 * Get a dialog from the pool, creating a new one if none is available.
+	 * 
+	 * @return dialog
+	 */
+	private JDialog acquireDialog() {
+		Component owner = SwingUtilities.windowForComponent(this);
+
+		JDialog dialog = null;
+		for (JDialog pooled : dialogPool.keySet()) {
+			// prefer the most recently released one
+			if (pooled.getOwner() == owner) {
+				dialog = pooled;
+			}
+		}
+
+		if (dialog == null) {
+			return createDialog();
+		}
+		dialogPool.remove(dialog);
+		return dialog;
+	}
+
+	/**
+	 * Keep the given hidden dialog in the pool if there is room, dismiss it
+	 * otherwise.
+	 * 
+	 * @param dialog
+	 *            dialog to release
+	 */
+	private void releaseDialog(JDialog dialog) {
+		if (dialogPoolSize == 0 || !isDisplayable()) {
+			dismissDialog(dialog);
+			return;
+		}
+
+		if (dialogPool.size() == dialogPoolSize) {
+			JDialog oldest = dialogPool.keySet().iterator().next();
+			dialogPool.remove(oldest);
+			dismissDialog(oldest);
+		}
+		dialogPool.put(dialog, Long.valueOf(System.currentTimeMillis()));
+
+		if (evictionTimer == null) {
+			evictionTimer = new Timer(dialogIdleTime, new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					evictDialogs(dialogIdleTime);
+				}
+			});
+			evictionTimer.setRepeats(false);
+		}
+		if (!evictionTimer.isRunning()) {
+			evictionTimer.setInitialDelay(dialogIdleTime);
+			evictionTimer.start();
+		}
+	}
+
+	/**
+	 * Dismiss all pooled dialogs idle for at least the given time and
+	 * reschedule eviction of the remaining ones.
+	 * 
+	 * @param idleTime
+	 *            minimum idle time in milliseconds
+	 */
+	private void evictDialogs(int idleTime) {
+		long now = System.currentTimeMillis();
+
+		Iterator<Map.Entry<JDialog, Long>> entries = dialogPool.entrySet()
+				.iterator();
+		while (entries.hasNext()) {
+			Map.Entry<JDialog, Long> entry = entries.next();
+
+			long idle = now - entry.getValue().longValue();
+			if (idle < idleTime) {
+				// remaining dialogs were released later
+				evictionTimer.setInitialDelay((int) (idleTime - idle));
+				evictionTimer.start();
+				return;
+			}
+
+			entries.remove();
+			dismissDialog(entry.getKey());
+		}
+
+		if (evictionTimer != null) {
+			evictionTimer.stop();
+		}
+	}
+
 	protected class PopupHandler extends MouseAdapter implements ActionListener {
 
 		private boolean popup;
@@ -697,6 +1188,15 @@ public class DockingPane extends JPanel {
 		}
 
 		public void actionPerformed(ActionEvent e) {
+			beginUpdate();
+			try {
+				performAction(e);
+			} finally {
+				endUpdate();
+			}
+		}
+
+		private void performAction(ActionEvent e) {
 			if (closeMenuItem == e.getSource()) {
 				for (int k = keys.size() - 1; k >= 0; k--) {
 					dock.closeDockable(dock.getDockable(keys.get(k)));
@@ -731,12 +1231,32 @@ public class DockingPane extends JPanel {
 				docking.setScreenBounds(bounds);
 
 				dockings.add(docking);
-				updateVisibility(docking);
+				index(docking);
+				dockingChanged(docking);
 			}
 		}
 	}
 
-	protected class DialogHandler implements WindowListener, ComponentListener {
+	protected class DialogHandler implements WindowListener,
+			ComponentListener, ActionListener {
+
+		/**
+		 * Delay in milliseconds after the last move or resize of a dialog
+		 * until the screen bounds of its docking are updated.
+		 */
+		private static final int SETTLE_DELAY = 200;
+
+		/**
+		 * Dockings whose dialogs were moved or resized since the last update.
+		 */
+		private Set<Docking> pending = new LinkedHashSet<Docking>();
+
+		private Timer settleTimer;
+
+		/**
+		 * Reused bounds to update dockings with.
+		 */
+		private Rectangle bounds = new Rectangle();
 
 		// WindowListener
 		public void windowActivated(WindowEvent e) {
@@ -762,10 +1282,15 @@ public class DockingPane extends JPanel {
 
 			List<Object> keys = docking.getDockableKeys();
 
-			for (int k = 0; k < keys.size(); k++) {
-				Object key = keys.get(k);
-				Dock dock = docking.getDock(key);
-				dock.closeDockable(dock.getDockable(key));
+			beginUpdate();
+			try {
+				for (int k = 0; k < keys.size(); k++) {
+					Object key = keys.get(k);
+					Dock dock = keyToDock.get(key);
+					dock.closeDockable(dock.getDockable(key));
+				}
+			} finally {
+				endUpdate();
 			}
 		}
 
@@ -777,28 +1302,70 @@ public class DockingPane extends JPanel {
 		}
 
 		public void componentMoved(ComponentEvent e) {
-			updateScreenBounds(e);
+			screenBoundsChanged(e);
 		}
 
 		public void componentResized(ComponentEvent e) {
-			updateScreenBounds(e);
+			screenBoundsChanged(e);
 		}
 
-		private void updateScreenBounds(ComponentEvent e) {
-			Docking docking = dialogToDocking.get(e.getSource());
+		/**
+		 * Defer the update of screen bounds until the dialog has settled.
+		 */
+		private void screenBoundsChanged(ComponentEvent e) {
+			pending.add(dialogToDocking.get(e.getSource()));
 
-			if (docking.isShowing()) {
-				// Component#getLocationOnScreen() throws
-				// IllegalComponentStateException if not currently showing
-				Point location = docking.getLocationOnScreen();
+			if (settleTimer == null) {
+				settleTimer = new Timer(SETTLE_DELAY, this);
+				settleTimer.setRepeats(false);
+			}
+			settleTimer.restart();
+		}
+
+		// ActionListener
+		public void actionPerformed(ActionEvent e) {
+			flushScreenBounds();
+		}
+
+		/**
+		 * Update the screen bounds of all dockings with pending changes.
+		 */
+		void flushScreenBounds() {
+			if (settleTimer != null) {
+				settleTimer.stop();
+			}
+
+			for (Docking docking : pending) {
+				updateScreenBounds(docking);
+			}
+			pending.clear();
+		}
+
+		/**
+		 * Update the screen bounds of the given docking if changes are
+		 * pending.
+		 */
+		void flushScreenBounds(Docking docking) {
+			if (pending.remove(docking)) {
+				updateScreenBounds(docking);
+			}
+		}
+
+		private void updateScreenBounds(Docking docking) {
+			JDialog dialog = dockingToDialog.get(docking);
 
-				Rectangle screenBounds = new Rectangle();
-				screenBounds.x = location.x;
-				screenBounds.y = location.y;
-				screenBounds.width = docking.getWidth();
-				screenBounds.height = docking.getHeight();
+			if (dialog != null && docking.isShowing()) {
+				// location of the dialog is in screen coordinates already, so
+				// Component#getLocationOnScreen() is not needed
+				Point offset = SwingUtilities.convertPoint(docking, 0, 0,
+						dialog);
 
-				docking.setScreenBounds(screenBounds);
+				bounds.x = dialog.getX() + offset.x;
+				bounds.y = dialog.getY() + offset.y;
+				bounds.width = docking.getWidth();
+				bounds.height = docking.getHeight();
+
+				docking.setScreenBounds(bounds);
 			}
 		}
 	}
@@ -818,6 +1385,11 @@ public class DockingPane extends JPanel {
 
 		private float weight;
 
+		/**
+		 * The bounds of the drop, reused for all marks.
+		 */
+		private Rectangle dropBounds = new Rectangle();
+
 		// DragGestureListener
 		public void dragGestureRecognized(DragGestureEvent dge) {
 			drag = getDock(dge.getComponent());
@@ -869,6 +1441,8 @@ public class DockingPane extends JPanel {
 		// DropTargetListener
 		public void dragEnter(DropTargetDragEvent dtde) {
 			docking = getDocking(dtde.getDropTargetContext().getComponent());
+
+			drop = null;
 		}
 
 		public void dragOver(DropTargetDragEvent dtde) {
@@ -876,13 +1450,23 @@ public class DockingPane extends JPanel {
 			int x = location.x;
 			int y = location.y;
 
-			drop = getDrop(x, y, docking.getRoot());
+			JComponent oldDrop = drop;
+			int oldOrientation = orientation;
+			float oldWeight = weight;
+
+			drop = docking.getDrop(x, y);
 			weight = getWeight();
 			orientation = getOrientation(x, y);
 
-			Rectangle rect = SwingUtilities.convertRectangle(drop.getParent(),
-					drop.getBounds(), docking.dropLayer);
-			docking.dropLayer.setMark(rect, orientation, weight);
+			if (drop == oldDrop && orientation == oldOrientation
+					&& weight == oldWeight) {
+				// already marked
+				return;
+			}
+
+			drop.getBounds(dropBounds);
+			docking.translateFrom(drop.getParent(), dropBounds);
+			docking.dropLayer.setMark(dropBounds, orientation, weight);
 		}
 
 		public void dragExit(DropTargetEvent dte) {
@@ -903,6 +1487,7 @@ public class DockingPane extends JPanel {
 					Slice slice = docking.slice(drop, newDock);
 					slice.setOrientation(orientation);
 					slice.setWeight(weight);
+					docking.normalize();
 
 					drop = newDock;
 				}
@@ -911,15 +1496,20 @@ public class DockingPane extends JPanel {
 						|| drag.getVisibleDockableCount() > keys.size()) {
 					Dockable selectedDockable = drag.getSelectedDockable();
 
-					for (int k = keys.size() - 1; k >= 0; k--) {
-						Object key = keys.get(k);
+					beginUpdate();
+					try {
+						for (int k = keys.size() - 1; k >= 0; k--) {
+							Object key = keys.get(k);
 
-						Dockable dockable = drag.removeDockable(key);
-						((Dock) drop).putDockable(key, dockable);
-					}
+							Dockable dockable = drag.removeDockable(key);
+							((Dock) drop).putDockable(key, dockable);
+						}
 
-					if (selectedDockable != null) {
-						((Dock) drop).setSelectedDockable(selectedDockable);
+						if (selectedDockable != null) {
+							((Dock) drop).setSelectedDockable(selectedDockable);
+						}
+					} finally {
+						endUpdate();
 					}
 				}
 			}
@@ -989,33 +1579,5 @@ public class DockingPane extends JPanel {
 		private float getWeight() {
 			return (drop instanceof Dock) ? 0.5f : 0.25f;
 		}
-
-		private JComponent getDrop(int x, int y, JComponent component) {
-
-			x -= component.getX();
-			y -= component.getY();
-
-			if (component instanceof Slice) {
-				Slice slice = (Slice) component;
-
-				JComponent main = slice.getMain();
-				JComponent remainder = slice.getRemainder();
-
-				if (main.isVisible() && main.getX() < x
-						&& main.getX() + main.getWidth() > x && main.getY() < y
-						&& main.getY() + main.getHeight() > y) {
-					return getDrop(x, y, main);
-				}
-
-				if (remainder.isVisible() && remainder.getX() < x
-						&& remainder.getX() + remainder.getWidth() > x
-						&& remainder.getY() < y
-						&& remainder.getY() + remainder.getHeight() > y) {
-					return getDrop(x, y, remainder);
-				}
-			}
-
-			return component;
-		}
 	}
 }
\ No newline at end of file
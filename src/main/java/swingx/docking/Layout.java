@@ -0,0 +1,364 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.JComponent;
+import javax.swing.SwingConstants;
+
+/**
+ * An immutable model of the layout of a {@link DockingPane}, i.e. its
+ * dockings with their slices, docks and bridges.
+ * <br>
+ * In contrast to the Swing components it describes, a layout can be created,
+ * read and written on any thread.
+ * 
+ * @see Persister#load(Layout)
+ */
+public class Layout {
+
+	private List<DockingNode> dockings;
+
+	/**
+	 * Create a layout.
+	 * 
+	 * @param dockings
+	 *            the dockings, the first one is the docking embedded in the
+	 *            <code>DockingPane</code>
+	 */
+	public Layout(List<DockingNode> dockings) {
+		if (dockings == null || dockings.size() == 0) {
+			throw new IllegalArgumentException("dockings must not be empty");
+		}
+		this.dockings = Collections
+				.unmodifiableList(new ArrayList<DockingNode>(dockings));
+	}
+
+	/**
+	 * Get the dockings.
+	 * 
+	 * @return unmodifiable list of dockings
+	 */
+	public List<DockingNode> getDockings() {
+		return dockings;
+	}
+
+	/**
+	 * Create a layout describing the given dockings.
+	 * 
+	 * @param dockings
+	 *            dockings
+	 * @return layout
+	 * @see DockingPane#createSnapshot()
+	 */
+	static Layout create(List<Docking> dockings) {
+		List<DockingNode> nodes = new ArrayList<DockingNode>();
+
+		for (Docking docking : dockings) {
+			nodes.add(new DockingNode(docking.getScreenBounds(),
+					createNode(docking.getRoot())));
+		}
+
+		return new Layout(nodes);
+	}
+
+	private static Node createNode(JComponent component) {
+		if (component instanceof Slice) {
+			Slice slice = (Slice) component;
+
+			return new SliceNode(slice.getOrientation(), slice.getWeight(),
+					createNode(slice.getMain()), createNode(slice
+							.getRemainder()));
+		} else if (component instanceof MultiSlice) {
+			MultiSlice multiSlice = (MultiSlice) component;
+
+			float[] weights = new float[multiSlice.getChildCount()];
+			Node[] children = new Node[weights.length];
+			for (int c = 0; c < children.length; c++) {
+				weights[c] = multiSlice.getWeight(c);
+				children[c] = createNode(multiSlice.getChild(c));
+			}
+			return new MultiSliceNode(multiSlice.getOrientation(),
+					weights, children);
+		} else if (component instanceof Dock) {
+			Dock dock = (Dock) component;
+
+			List<Object> keys = dock.getDockableKeys();
+			Object[] reversed = new Object[keys.size()];
+			boolean[] nulls = new boolean[reversed.length];
+			int selected = -1;
+			for (int k = 0; k < reversed.length; k++) {
+				Object key = keys.get(reversed.length - 1 - k);
+				Dockable dockable = dock.getDockable(key);
+
+				reversed[k] = key;
+				nulls[k] = dockable == null;
+				if (dockable != null && dockable == dock.getSelectedDockable()) {
+					selected = k;
+				}
+			}
+			return new DockNode(reversed, nulls, selected);
+		} else if (component instanceof Bridge) {
+			Bridge bridge = (Bridge) component;
+
+			return new BridgeNode(bridge.getKey(),
+					bridge.getBridged() == null);
+		} else {
+			throw new IllegalArgumentException("unknown component "
+					+ component);
+		}
+	}
+
+	/**
+	 * A node in a layout.
+	 */
+	public static abstract class Node {
+		Node() {
+		}
+	}
+
+	/**
+	 * A node describing a {@link Docking}.
+	 */
+	public static class DockingNode extends Node {
+
+		private Rectangle screenBounds;
+
+		private Node root;
+
+		public DockingNode(Rectangle screenBounds, Node root) {
+			if (screenBounds == null) {
+				throw new IllegalArgumentException(
+						"screenBounds must not be null");
+			}
+			if (root == null) {
+				throw new IllegalArgumentException("root must not be null");
+			}
+			this.screenBounds = new Rectangle(screenBounds);
+			this.root = root;
+		}
+
+		public Rectangle getScreenBounds() {
+			return new Rectangle(screenBounds);
+		}
+
+		public Node getRoot() {
+			return root;
+		}
+	}
+
+	/**
+	 * A node describing a {@link Slice}.
+	 */
+	public static class SliceNode extends Node {
+
+		private int orientation;
+
+		private float weight;
+
+		private Node main;
+
+		private Node remainder;
+
+		public SliceNode(int orientation, float weight, Node main,
+				Node remainder) {
+			if (main == null || remainder == null) {
+				throw new IllegalArgumentException(
+						"main and remainder must not be null");
+			}
+			if (orientation != SwingConstants.TOP
+					&& orientation != SwingConstants.LEFT
+					&& orientation != SwingConstants.BOTTOM
+					&& orientation != SwingConstants.RIGHT) {
+				throw new IllegalArgumentException("unknown orientation '"
+						+ orientation + "'");
+			}
+			if (!(weight >= 0.0f && weight <= 1.0f)) {
+				throw new IllegalArgumentException("invalid weight '" + weight
+						+ "'");
+			}
+			this.orientation = orientation;
+			this.weight = weight;
+			this.main = main;
+			this.remainder = remainder;
+		}
+
+		public int getOrientation() {
+			return orientation;
+		}
+
+		public float getWeight() {
+			return weight;
+		}
+
+		public Node getMain() {
+			return main;
+		}
+
+		public Node getRemainder() {
+			return remainder;
+		}
+	}
+
+	/**
+	 * A node describing a {@link MultiSlice}.
+	 */
+	public static class MultiSliceNode extends Node {
+
+		private int orientation;
+
+		private float[] weights;
+
+		private Node[] children;
+
+		public MultiSliceNode(int orientation, float[] weights, Node[] children) {
+			if (weights.length != children.length) {
+				throw new IllegalArgumentException(
+						"weights and children must have equal length");
+			}
+			for (int c = 0; c < children.length; c++) {
+				if (children[c] == null) {
+					throw new IllegalArgumentException(
+							"children must not be null");
+				}
+				if (!(weights[c] >= 0.0f) || Float.isInfinite(weights[c])) {
+					throw new IllegalArgumentException("invalid weight '"
+							+ weights[c] + "'");
+				}
+			}
+			if (orientation != SwingConstants.HORIZONTAL
+					&& orientation != SwingConstants.VERTICAL) {
+				throw new IllegalArgumentException("unknown orientation '"
+						+ orientation + "'");
+			}
+			this.orientation = orientation;
+			this.weights = weights.clone();
+			this.children = children.clone();
+		}
+
+		public int getOrientation() {
+			return orientation;
+		}
+
+		public int getChildCount() {
+			return children.length;
+		}
+
+		public Node getChild(int index) {
+			return children[index];
+		}
+
+		public float getWeight(int index) {
+			return weights[index];
+		}
+	}
+
+	/**
+	 * A node describing a {@link Dock}.
+	 */
+	public static class DockNode extends Node {
+
+		private Object[] keys;
+
+		private boolean[] nulls;
+
+		private int selected;
+
+		/**
+		 * Create a node for a dock.
+		 * 
+		 * @param keys
+		 *            the keys in the order to put them into the dock, i.e.
+		 *            the reverse of {@link Dock#getDockableKeys()}
+		 * @param nulls
+		 *            flags for keys without dockable
+		 * @param selected
+		 *            index of the key of the selected dockable or
+		 *            <code>-1</code>
+		 */
+		public DockNode(Object[] keys, boolean[] nulls, int selected) {
+			if (keys.length != nulls.length) {
+				throw new IllegalArgumentException(
+						"keys and nulls must have equal length");
+			}
+			if (selected < -1 || selected >= keys.length) {
+				throw new IllegalArgumentException("invalid selected index "
+						+ selected);
+			}
+			this.keys = keys.clone();
+			this.nulls = nulls.clone();
+			this.selected = selected;
+		}
+
+		public int getKeyCount() {
+			return keys.length;
+		}
+
+		public Object getKey(int index) {
+			return keys[index];
+		}
+
+		/**
+		 * Is there no dockable for the key at the given index.
+		 * 
+		 * @param index
+		 *            index of key
+		 * @return <code>true</code> if there is no dockable
+		 */
+		public boolean isNull(int index) {
+			return nulls[index];
+		}
+
+		public int getSelected() {
+			return selected;
+		}
+	}
+
+	/**
+	 * A node describing a {@link Bridge}.
+	 */
+	public static class BridgeNode extends Node {
+
+		private Object key;
+
+		private boolean isNull;
+
+		public BridgeNode(Object key, boolean isNull) {
+			this.key = key;
+			this.isNull = isNull;
+		}
+
+		public Object getKey() {
+			return key;
+		}
+
+		/**
+		 * Is there no bridged component.
+		 * 
+		 * @return <code>true</code> if there is no bridged component
+		 */
+		public boolean isNull() {
+			return isNull;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking;
+
+/**
+ * A {@link Docked} that is able to defer creation of content until it is
+ * shown.
+ * 
+ * @see DefaultDockable#setContentProvider(ContentProvider)
+ */
+public interface LazyDocked extends Docked {
+
+	/**
+	 * Set the content to be created by the given provider. Creation might be
+	 * deferred until the content is shown.
+	 * 
+	 * @param provider
+	 *            provider of the content
+	 */
+	public void setContent(ContentProvider provider);
+}
@@ -0,0 +1,580 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.Insets;
+import java.awt.LayoutManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+
+/**
+ * A component that devides its area into an arbitrary count of components
+ * along one axis, each one with its own weight. Like a {@link Slice} it allows
+ * adjustment of layout through mouse drag of the dividers between its
+ * components.
+ * 
+ * @see Docking#normalize()
+ */
+public class MultiSlice extends JPanel {
+
+	/**
+	 * The spacing used to separate the components.
+	 */
+	protected int spacing = 4;
+
+	/**
+	 * The orientation, SwingConstants.HORIZONTAL or SwingConstants.VERTICAL.
+	 */
+	protected int orientation;
+
+	/**
+	 * The mode of resizing when a divider is dragged.
+	 */
+	protected int resizeMode = Slice.RESIZE_CONTINUOUS;
+
+	private MultiSliceLayout layout = new MultiSliceLayout();
+
+	private DividerHandler dividerHandler = new DividerHandler();
+
+	/**
+	 * The cached minimum size, dropped when this multi slice is invalidated and
+	 * before it is validated.
+	 * 
+	 * @see Docking#validateTree()
+	 */
+	private Dimension minimumSize;
+
+	/**
+	 * The child components.
+	 */
+	protected List<JComponent> children = new ArrayList<JComponent>();
+
+	/**
+	 * The weights of the child components.
+	 */
+	protected List<Float> weights = new ArrayList<Float>();
+
+	/**
+	 * The dividers preceding each child component.
+	 */
+	protected List<JComponent> dividers = new ArrayList<JComponent>();
+
+	/**
+	 * Create a multi slice.
+	 */
+	public MultiSlice() {
+		setLayout(layout);
+
+		setOrientation(SwingConstants.VERTICAL);
+	}
+
+	/**
+	 * Set the orientation.
+	 * 
+	 * @param orientation
+	 *            orientation of the components, SwingConstants.HORIZONTAL or
+	 *            SwingConstants.VERTICAL
+	 */
+	public void setOrientation(int orientation) {
+		if (orientation != SwingConstants.HORIZONTAL
+				&& orientation != SwingConstants.VERTICAL) {
+			throw new IllegalArgumentException("unkown orientation '"
+					+ orientation + "'");
+		}
+		this.orientation = orientation;
+
+		for (JComponent divider : dividers) {
+			divider.setCursor(getDividerCursor());
+		}
+
+		revalidate();
+	}
+
+	/**
+	 * Get the orientation.
+	 * 
+	 * @return orientation
+	 */
+	public int getOrientation() {
+		return orientation;
+	}
+
+	/**
+	 * Set the spacing to be used to separate the components.
+	 * 
+	 * @param spacing
+	 *            spacing to use
+	 */
+	public void setSpacing(int spacing) {
+		this.spacing = spacing;
+
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Get the spacing.
+	 * 
+	 * @return spacing
+	 */
+	public int getSpacing() {
+		return spacing;
+	}
+
+	/**
+	 * Set the mode of resizing when a divider is dragged.
+	 * 
+	 * @param resizeMode
+	 *            mode of resizing, {@link Slice#RESIZE_CONTINUOUS},
+	 *            {@link Slice#RESIZE_THROTTLED} or {@link Slice#RESIZE_OUTLINE}
+	 */
+	public void setResizeMode(int resizeMode) {
+		if (resizeMode != Slice.RESIZE_CONTINUOUS
+				&& resizeMode != Slice.RESIZE_THROTTLED
+				&& resizeMode != Slice.RESIZE_OUTLINE) {
+			throw new IllegalArgumentException("unknown resize mode '"
+					+ resizeMode + "'");
+		}
+		this.resizeMode = resizeMode;
+	}
+
+	/**
+	 * Get the mode of resizing.
+	 * 
+	 * @return mode of resizing
+	 */
+	public int getResizeMode() {
+		return resizeMode;
+	}
+
+	/**
+	 * Get the count of child components.
+	 * 
+	 * @return count
+	 */
+	public int getChildCount() {
+		return children.size();
+	}
+
+	/**
+	 * Get the child component at the given index.
+	 * 
+	 * @param index
+	 *            index of child
+	 * @return child component
+	 */
+	public JComponent getChild(int index) {
+		return children.get(index);
+	}
+
+	/**
+	 * Get the index of the given child component.
+	 * 
+	 * @param child
+	 *            child to get index for
+	 * @return index or <code>-1</code> if not a child
+	 */
+	public int indexOfChild(JComponent child) {
+		return children.indexOf(child);
+	}
+
+	/**
+	 * Get the weight of the child component at the given index.
+	 * 
+	 * @param index
+	 *            index of child
+	 * @return weight
+	 */
+	public float getWeight(int index) {
+		return weights.get(index);
+	}
+
+	/**
+	 * Set the weight of the child component at the given index, i.e. how
+	 * much available space is assigned to the component relative to the
+	 * weights of all other visible children.
+	 * 
+	 * @param index
+	 *            index of child
+	 * @param weight
+	 *            weight
+	 */
+	public void setWeight(int index, float weight) {
+		weights.set(index, Math.max(0.0f, weight));
+
+		revalidate();
+	}
+
+	/**
+	 * Add a child component.
+	 * 
+	 * @param child
+	 *            child to add
+	 * @param weight
+	 *            weight of child
+	 */
+	public void addChild(JComponent child, float weight) {
+		addChild(children.size(), child, weight);
+	}
+
+	/**
+	 * Add a child component at the given index.
+	 * 
+	 * @param index
+	 *            index to add child at
+	 * @param child
+	 *            child to add
+	 * @param weight
+	 *            weight of child
+	 */
+	public void addChild(int index, JComponent child, float weight) {
+		if (child == null) {
+			throw new IllegalArgumentException("child must not be null");
+		}
+
+		children.add(index, child);
+		weights.add(index, Math.max(0.0f, weight));
+
+		JComponent divider = new JPanel();
+		divider.setOpaque(false);
+		divider.setCursor(getDividerCursor());
+		divider.addMouseListener(dividerHandler);
+		divider.addMouseMotionListener(dividerHandler);
+		dividers.add(index, divider);
+
+		add(divider);
+		add(child);
+
+		repaint();
+		revalidate();
+	}
+
+	/**
+	 * Remove the given child component.
+	 * 
+	 * @param child
+	 *            child to remove
+	 */
+	public void removeChild(JComponent child) {
+		int index = children.indexOf(child);
+		if (index == -1) {
+			throw new IllegalArgumentException("unkown child");
+		}
+
+		children.remove(index);
+		weights.remove(index);
+		remove(dividers.remove(index));
+		remove(child);
+
+		repaint();
+		revalidate();
+	}
+
+	/**
+	 * Replace the given child with a new component.
+	 * 
+	 * @param child
+	 *            child to replace
+	 * @param newChild
+	 *            new component
+	 */
+	public void replace(JComponent child, JComponent newChild) {
+		int index = children.indexOf(child);
+		if (index == -1) {
+			throw new IllegalArgumentException("unkown child");
+		}
+
+		remove(child);
+		children.set(index, newChild);
+		add(newChild);
+
+		repaint();
+		revalidate();
+	}
+
+	private Cursor getDividerCursor() {
+		if (orientation == SwingConstants.VERTICAL) {
+			return Cursor.getPredefinedCursor(Cursor.N_RESIZE_CURSOR);
+		} else {
+			return Cursor.getPredefinedCursor(Cursor.W_RESIZE_CURSOR);
+		}
+	}
+
+	/**
+	 * Overridden to drop the cached minimum size.
+	 */
+	@Override
+	public void invalidate() {
+		minimumSize = null;
+
+		super.invalidate();
+	}
+
+	/**
+	 * Drop the cached minimum size - changes of children do not invalidate
+	 * this multi slice if it is already invalid, so the cache might be stale.
+	 */
+	void dropMinimumSize() {
+		minimumSize = null;
+	}
+
+	private class MultiSliceLayout implements LayoutManager {
+
+		public void addLayoutComponent(String name, Component comp) {
+		}
+
+		public void removeLayoutComponent(Component comp) {
+		}
+
+		public void layoutContainer(Container parent) {
+			Insets insets = getInsets();
+
+			int x = insets.left;
+			int y = insets.top;
+			int width = parent.getWidth() - insets.left - insets.right;
+			int height = parent.getHeight() - insets.top - insets.bottom;
+
+			boolean vertical = orientation == SwingConstants.VERTICAL;
+
+			int count = 0;
+			float total = 0.0f;
+			for (int c = 0; c < children.size(); c++) {
+				if (children.get(c).isVisible()) {
+					count++;
+					total += weights.get(c);
+				}
+			}
+			if (count == 0) {
+				for (JComponent divider : dividers) {
+					divider.setVisible(false);
+				}
+				return;
+			}
+
+			int available = (vertical ? height : width) - (count - 1)
+					* spacing;
+
+			int[] sizes = new int[children.size()];
+			int[] minimums = new int[children.size()];
+			int used = 0;
+			int last = -1;
+			for (int c = 0; c < children.size(); c++) {
+				JComponent child = children.get(c);
+				if (child.isVisible()) {
+					float weight = total > 0.0f ? weights.get(c) / total
+							: 1.0f / count;
+					sizes[c] = (int) (available * weight);
+					used += sizes[c];
+					last = c;
+
+					Dimension minimum = child.getMinimumSize();
+					minimums[c] = vertical ? minimum.height : minimum.width;
+				}
+			}
+			sizes[last] += available - used;
+
+			int deficit = 0;
+			int surplus = 0;
+			for (int c = 0; c < children.size(); c++) {
+				if (children.get(c).isVisible()) {
+					if (sizes[c] < minimums[c]) {
+						deficit += minimums[c] - sizes[c];
+					} else {
+						surplus += sizes[c] - minimums[c];
+					}
+				}
+			}
+			if (deficit > 0 && surplus > 0) {
+				int reduce = Math.min(deficit, surplus);
+				int reduced = 0;
+				for (int c = 0; c < children.size(); c++) {
+					if (children.get(c).isVisible()) {
+						if (sizes[c] < minimums[c]) {
+							int increase = (int) ((long) (minimums[c] - sizes[c])
+									* reduce / deficit);
+							sizes[c] += increase;
+							reduced -= increase;
+						} else {
+							int decrease = (int) ((long) (sizes[c] - minimums[c])
+									* reduce / surplus);
+							sizes[c] -= decrease;
+							reduced += decrease;
+						}
+					}
+				}
+				sizes[last] += reduced;
+			}
+
+			boolean first = true;
+			for (int c = 0; c < children.size(); c++) {
+				JComponent child = children.get(c);
+				JComponent divider = dividers.get(c);
+
+				if (!child.isVisible()) {
+					divider.setVisible(false);
+					continue;
+				}
+
+				if (first) {
+					divider.setVisible(false);
+					first = false;
+				} else {
+					divider.setVisible(true);
+					if (vertical) {
+						divider.setBounds(x, y, width, spacing);
+						y += spacing;
+					} else {
+						divider.setBounds(x, y, spacing, height);
+						x += spacing;
+					}
+				}
+
+				if (vertical) {
+					child.setBounds(x, y, width, sizes[c]);
+					y += sizes[c];
+				} else {
+					child.setBounds(x, y, sizes[c], height);
+					x += sizes[c];
+				}
+			}
+		}
+
+		public Dimension minimumLayoutSize(Container parent) {
+			if (minimumSize == null) {
+				minimumSize = calculateMinimumSize();
+			}
+			return new Dimension(minimumSize);
+		}
+
+		private Dimension calculateMinimumSize() {
+			Dimension size = new Dimension();
+
+			boolean vertical = orientation == SwingConstants.VERTICAL;
+
+			int count = 0;
+			for (JComponent child : children) {
+				if (child.isVisible()) {
+					Dimension childSize = child.getMinimumSize();
+					if (vertical) {
+						size.width = Math.max(childSize.width, size.width);
+						size.height += childSize.height;
+					} else {
+						size.width += childSize.width;
+						size.height = Math.max(childSize.height, size.height);
+					}
+					count++;
+				}
+			}
+
+			if (count > 1) {
+				if (vertical) {
+					size.height += (count - 1) * spacing;
+				} else {
+					size.width += (count - 1) * spacing;
+				}
+			}
+
+			Insets insets = getInsets();
+			size.width += insets.left + insets.right;
+			size.height += insets.top + insets.bottom;
+
+			return size;
+		}
+
+		public Dimension preferredLayoutSize(Container parent) {
+			return minimumLayoutSize(parent);
+		}
+
+		private void drag(int index, int position) {
+			int previous = index - 1;
+			while (previous >= 0 && !children.get(previous).isVisible()) {
+				previous--;
+			}
+			if (previous < 0) {
+				return;
+			}
+
+			JComponent before = children.get(previous);
+			JComponent after = children.get(index);
+
+			float weight = weights.get(previous) + weights.get(index);
+
+			int start;
+			int end;
+			if (orientation == SwingConstants.VERTICAL) {
+				start = before.getY();
+				end = after.getY() + after.getHeight() - spacing;
+			} else {
+				start = before.getX();
+				end = after.getX() + after.getWidth() - spacing;
+			}
+
+			if (end <= start) {
+				return;
+			}
+
+			float beforeWeight = weight
+					* Math.max(0.0f, Math.min(1.0f, (float) (position - start)
+							/ (end - start)));
+			weights.set(previous, beforeWeight);
+			weights.set(index, weight - beforeWeight);
+
+			layoutContainer(MultiSlice.this);
+
+			before.validate();
+			after.validate();
+		}
+
+	}
+
+	private class DividerHandler extends DividerDrag {
+
+		public DividerHandler() {
+			super(MultiSlice.this);
+		}
+
+		protected int getResizeMode() {
+			return resizeMode;
+		}
+
+		protected boolean isVertical() {
+			return orientation == SwingConstants.VERTICAL;
+		}
+
+		protected int getSpacing() {
+			return spacing;
+		}
+
+		protected void drag(Component divider, int position) {
+			int index = dividers.indexOf(divider);
+			if (index != -1) {
+				// divider might have been removed while throttling
+				layout.drag(index, position);
+			}
+		}
+	}
+}
\ No newline at end of file
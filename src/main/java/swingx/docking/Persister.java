@@ -19,7 +19,12 @@
 package swingx.docking;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javax.swing.JComponent;
 
@@ -51,13 +56,57 @@ public abstract class Persister {
 	 * @throws IOException
 	 */
 	public void load() throws IOException {
-		// make sure old dockables are already undocked and dismissed as
-		// loadDockings() might return identical instances
-		for (Object key : dockingPane.getDockableKeys()) {
-			dockingPane.removeDockable(key);
+		dockingPane.beginUpdate();
+		try {
+			// make sure old dockables are already undocked and dismissed as
+			// loadDockings() might return identical instances
+			for (Object key : dockingPane.getDockableKeys()) {
+				dockingPane.removeDockable(key);
+			}
+
+			dockingPane.setDockings(loadDockings());
+		} finally {
+			dockingPane.endUpdate();
 		}
+	}
+
+	/**
+	 * Load the state of the <code>DockingPane</code> from the given layout,
+	 * all components are created in a single update.
+	 * 
+	 * @param layout
+	 *            layout to load
+	 * @see #readLayout()
+	 */
+	public void load(Layout layout) {
+		dockingPane.beginUpdate();
+		try {
+			for (Object key : dockingPane.getDockableKeys()) {
+				dockingPane.removeDockable(key);
+			}
 
-		dockingPane.setDockings(loadDockings());
+			dockingPane.setDockings(createDockings(layout));
+		} finally {
+			dockingPane.endUpdate();
+		}
+	}
+
+	/**
+	 * Read the layout without creating any components - in contrast to
+	 * {@link #load()} this method may be called from any thread, e.g. to
+	 * parse off the event dispatch thread before calling
+	 * {@link #load(Layout)} on it.
+	 * <br>
+	 * The default implementation describes the dockings returned by
+	 * {@link #loadDockings()}, so it creates components and has to be called
+	 * on the event dispatch thread. Subclasses should override it to read
+	 * without creating components.
+	 * 
+	 * @return read layout
+	 * @throws IOException
+	 */
+	public Layout readLayout() throws IOException {
+		return createLayout(loadDockings());
 	}
 
 	protected abstract List<Docking> loadDockings() throws IOException;
@@ -74,6 +123,156 @@ public abstract class Persister {
 	protected abstract void saveDockings(List<Docking> dockings)
 			throws IOException;
 
+	/**
+	 * Save the state of the <code>DockingPane</code> asynchronously - a
+	 * snapshot of the layout is taken on the calling event dispatch thread,
+	 * while writing it is performed by the given executor.
+	 * 
+	 * @param executor
+	 *            executor to write with
+	 * @return future of the save, failing with an <code>IOException</code>
+	 *         if writing failed
+	 * @throws IllegalStateException
+	 *             if this persister cannot write layouts
+	 * @see DockingPane#createSnapshot()
+	 * @see #writeLayout(Layout)
+	 */
+	public Future<Void> save(Executor executor) {
+		if (executor == null) {
+			throw new IllegalArgumentException("executor must not be null");
+		}
+		// fail before a snapshot is taken instead of inside the future
+		checkWritable();
+
+		final Layout layout = dockingPane.createSnapshot();
+
+		FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+			public Void call() throws IOException {
+				writeLayout(layout);
+
+				return null;
+			}
+		});
+		executor.execute(task);
+
+		return task;
+	}
+
+	/**
+	 * Write the given layout - in contrast to {@link #save()} this method may
+	 * be called from any thread.
+	 * <br>
+	 * The default implementation passes the dockings described by the layout
+	 * to {@link #saveDockings(List)}, so it creates components and has to be
+	 * called on the event dispatch thread, e.g. by an executor passed to
+	 * {@link #save(Executor)} that uses <code>SwingUtilities.invokeLater()</code>.
+	 * Subclasses should override it to write without creating components.
+	 * 
+	 * @param layout
+	 *            layout to write
+	 * @throws IOException
+	 * @see #readLayout()
+	 */
+	public void writeLayout(Layout layout) throws IOException {
+		saveDockings(createDockings(layout));
+	}
+
+	/**
+	 * Check that this persister is able to write layouts, called before
+	 * {@link #save(Executor)} takes a snapshot. The default implementation
+	 * does nothing.
+	 * 
+	 * @throws IllegalStateException
+	 *             if layouts cannot be written
+	 */
+	protected void checkWritable() {
+	}
+
+	/**
+	 * Create a layout describing the given dockings.
+	 * 
+	 * @param dockings
+	 *            dockings
+	 * @return layout
+	 */
+	protected final Layout createLayout(List<Docking> dockings) {
+		return Layout.create(dockings);
+	}
+
+	/**
+	 * Create the dockings described by the given layout.
+	 * 
+	 * @param layout
+	 *            layout
+	 * @return created dockings
+	 */
+	protected final List<Docking> createDockings(Layout layout) {
+		List<Docking> dockings = new ArrayList<Docking>();
+
+		for (Layout.DockingNode node : layout.getDockings()) {
+			Docking docking = createDocking();
+			docking.setScreenBounds(node.getScreenBounds());
+			docking.setRoot(createComponent(node.getRoot()));
+
+			dockings.add(docking);
+		}
+
+		return dockings;
+	}
+
+	private JComponent createComponent(Layout.Node node) {
+		if (node instanceof Layout.SliceNode) {
+			Layout.SliceNode sliceNode = (Layout.SliceNode) node;
+
+			Slice slice = createSlice();
+			slice.setOrientation(sliceNode.getOrientation());
+			slice.setWeight(sliceNode.getWeight());
+			slice.setMain(createComponent(sliceNode.getMain()));
+			slice.setRemainder(createComponent(sliceNode.getRemainder()));
+			return slice;
+		} else if (node instanceof Layout.MultiSliceNode) {
+			Layout.MultiSliceNode multiSliceNode = (Layout.MultiSliceNode) node;
+
+			MultiSlice multiSlice = createMultiSlice();
+			multiSlice.setOrientation(multiSliceNode.getOrientation());
+			for (int c = 0; c < multiSliceNode.getChildCount(); c++) {
+				multiSlice.addChild(createComponent(multiSliceNode
+						.getChild(c)), multiSliceNode.getWeight(c));
+			}
+			return multiSlice;
+		} else if (node instanceof Layout.DockNode) {
+			Layout.DockNode dockNode = (Layout.DockNode) node;
+
+			Dock dock = createDock();
+			for (int k = 0; k < dockNode.getKeyCount(); k++) {
+				Object key = dockNode.getKey(k);
+
+				Dockable dockable = null;
+				if (!dockNode.isNull(k)) {
+					dockable = resolveDockable(key);
+				}
+				dock.putDockable(key, dockable);
+				if (dockable != null && k == dockNode.getSelected()) {
+					dock.setSelectedDockable(dockable);
+				}
+			}
+			return dock;
+		} else if (node instanceof Layout.BridgeNode) {
+			Layout.BridgeNode bridgeNode = (Layout.BridgeNode) node;
+
+			JComponent bridged = null;
+			if (!bridgeNode.isNull()) {
+				bridged = resolveComponent(bridgeNode.getKey());
+			}
+
+			Bridge bridge = createBridge();
+			bridge.setBridged(bridgeNode.getKey(), bridged);
+			return bridge;
+		} else {
+			throw new IllegalArgumentException("unknown node " + node);
+		}
+	}
+
 	protected final Dockable resolveDockable(Object key) {
 		return dockingPane.createDockable(key);
 	}
@@ -90,6 +289,10 @@ public abstract class Persister {
 		return dockingPane.createSlice();
 	}
 
+	protected final MultiSlice createMultiSlice() {
+		return dockingPane.createMultiSlice();
+	}
+
 	protected final Bridge createBridge() {
 		return dockingPane.createBridge();
 	}
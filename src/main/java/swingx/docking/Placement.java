@@ -0,0 +1,42 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking;
+
+import javax.swing.JComponent;
+
+/**
+ * A placement decides where a new {@link Dock} or {@link Bridge} is sliced
+ * into a {@link Docking}.
+ * 
+ * @see DockingPane#setPlacement(Placement)
+ * @see Docking#slice(JComponent, JComponent)
+ */
+public interface Placement {
+
+	/**
+	 * Get the component to slice for the given new dock or bridge.
+	 * 
+	 * @param docking
+	 *            docking to place component in
+	 * @param component
+	 *            the new dock or bridge
+	 * @return component contained in the given docking
+	 */
+	public JComponent getTarget(Docking docking, JComponent component);
+}
@@ -24,13 +24,11 @@ import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Insets;
 import java.awt.LayoutManager;
-import java.awt.Point;
-import java.awt.event.MouseEvent;
+import java.awt.Rectangle;
 
 import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.SwingConstants;
-import javax.swing.event.MouseInputAdapter;
 
 /**
  * A <code>JSplitPane</code> like component that devides its area into two
@@ -38,6 +36,25 @@ import javax.swing.event.MouseInputAdapter;
  */
 public class Slice extends JPanel {
 
+	/**
+	 * Resize mode that lays out the components on each drag of the divider.
+	 */
+	public static final int RESIZE_CONTINUOUS = 0;
+
+	/**
+	 * Resize mode that coalesces drags of the divider, laying out the
+	 * components at most once per display frame.
+	 */
+	public static final int RESIZE_THROTTLED = 1;
+
+	/**
+	 * Resize mode that shows an outline of the divider while it is dragged
+	 * and lays out the components once the drag is finished.
+	 * 
+	 * @see Docking#setOutline(Rectangle)
+	 */
+	public static final int RESIZE_OUTLINE = 2;
+
 	/**
 	 * The spacing used to separate the main and remainder components.
 	 */
@@ -53,8 +70,23 @@ public class Slice extends JPanel {
 	 */
 	protected int orientation;
 
+	/**
+	 * The mode of resizing when the divider is dragged.
+	 */
+	protected int resizeMode = RESIZE_CONTINUOUS;
+
 	private SliceLayout layout = new SliceLayout();
 
+	private DividerHandler dividerHandler = new DividerHandler();
+
+	/**
+	 * The cached minimum size, dropped when this slice is invalidated and
+	 * before it is validated.
+	 * 
+	 * @see Docking#validateTree()
+	 */
+	private Dimension minimumSize;
+
 	/**
 	 * The main component.
 	 */
@@ -74,8 +106,8 @@ public class Slice extends JPanel {
 		setLayout(layout);
 
 		divider.setOpaque(false);
-		divider.addMouseListener(layout);
-		divider.addMouseMotionListener(layout);
+		divider.addMouseListener(dividerHandler);
+		divider.addMouseMotionListener(dividerHandler);
 		add(divider);
 
 		setOrientation(SwingConstants.TOP);
@@ -145,6 +177,31 @@ public class Slice extends JPanel {
 		return spacing;
 	}
 
+	/**
+	 * Set the mode of resizing when the divider is dragged.
+	 * 
+	 * @param resizeMode
+	 *            mode of resizing, {@link #RESIZE_CONTINUOUS},
+	 *            {@link #RESIZE_THROTTLED} or {@link #RESIZE_OUTLINE}
+	 */
+	public void setResizeMode(int resizeMode) {
+		if (resizeMode != RESIZE_CONTINUOUS && resizeMode != RESIZE_THROTTLED
+				&& resizeMode != RESIZE_OUTLINE) {
+			throw new IllegalArgumentException("unknown resize mode '"
+					+ resizeMode + "'");
+		}
+		this.resizeMode = resizeMode;
+	}
+
+	/**
+	 * Get the mode of resizing.
+	 * 
+	 * @return mode of resizing
+	 */
+	public int getResizeMode() {
+		return resizeMode;
+	}
+
 	/**
 	 * Set the position of the main component.
 	 * 
@@ -273,10 +330,25 @@ public class Slice extends JPanel {
 		}
 	}
 
-	private class SliceLayout extends MouseInputAdapter implements
-			LayoutManager {
+	/**
+	 * Overridden to drop the cached minimum size.
+	 */
+	@Override
+	public void invalidate() {
+		minimumSize = null;
+
+		super.invalidate();
+	}
+
+	/**
+	 * Drop the cached minimum size - changes of children do not invalidate
+	 * this slice if it is already invalid, so the cache might be stale.
+	 */
+	void dropMinimumSize() {
+		minimumSize = null;
+	}
 
-		private Point dragStart;
+	private class SliceLayout implements LayoutManager {
 
 		public void addLayoutComponent(String name, Component comp) {
 		}
@@ -388,6 +460,13 @@ public class Slice extends JPanel {
 		}
 
 		public Dimension minimumLayoutSize(Container parent) {
+			if (minimumSize == null) {
+				minimumSize = calculateMinimumSize();
+			}
+			return new Dimension(minimumSize);
+		}
+
+		private Dimension calculateMinimumSize() {
 			Dimension size = new Dimension();
 
 			if (main != null && main.isVisible()) {
@@ -436,35 +515,22 @@ public class Slice extends JPanel {
 			return minimumLayoutSize(parent);
 		}
 
-		public void mousePressed(MouseEvent e) {
-			dragStart = e.getPoint();
-		}
-
-		public void mouseDragged(MouseEvent e) {
-			if (dragStart == null) {
-				// mousePressed might not be called if focus was in a popupmenu
-				// previously
-				dragStart = e.getPoint();
-			}
-
-			int x = divider.getX() + e.getX() - dragStart.x;
-			int y = divider.getY() + e.getY() - dragStart.y;
-
+		private void drag(int position) {
 			int height = getHeight() - spacing;
 			int width = (getWidth() - spacing);
 
 			switch (orientation) {
 			case SwingConstants.TOP:
-				weight = (float) y / height;
+				weight = (float) position / height;
 				break;
 			case SwingConstants.BOTTOM:
-				weight = 1.0f - (float) y / height;
+				weight = 1.0f - (float) position / height;
 				break;
 			case SwingConstants.LEFT:
-				weight = (float) x / width;
+				weight = (float) position / width;
 				break;
 			case SwingConstants.RIGHT:
-				weight = 1.0f - (float) x / width;
+				weight = 1.0f - (float) position / width;
 				break;
 			}
 
@@ -482,10 +548,29 @@ public class Slice extends JPanel {
 			main.validate();
 			remainder.validate();
 		}
+	}
+
+	private class DividerHandler extends DividerDrag {
+
+		public DividerHandler() {
+			super(Slice.this);
+		}
+
+		protected int getResizeMode() {
+			return resizeMode;
+		}
+
+		protected boolean isVertical() {
+			return orientation == SwingConstants.TOP
+					|| orientation == SwingConstants.BOTTOM;
+		}
+
+		protected int getSpacing() {
+			return spacing;
+		}
 
-		@Override
-		public void mouseReleased(MouseEvent e) {
-			dragStart = null;
+		protected void drag(Component divider, int position) {
+			layout.drag(position);
 		}
 	}
 }
\ No newline at end of file
@@ -21,8 +21,15 @@ package swingx.docking.dock;
 import java.awt.BorderLayout;
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.Action;
 import javax.swing.Icon;
@@ -34,12 +41,16 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JToolBar;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
+import swingx.docking.ContentProvider;
 import swingx.docking.Dock;
 import swingx.docking.Dockable;
-import swingx.docking.Docked;
+import swingx.docking.LazyDocked;
 import swingx.docking.DockingPane;
 import swingx.docking.border.LineBorder;
 import swingx.docking.layout.FloatingLayout;
@@ -47,20 +58,65 @@ import swingx.docking.layout.FloatingLayout;
 /**
  * A <code>Dock</code> that utilizes a {@link JTabbedPane} to layer its
  * {@link Dockables} in tabs.
+ * <br>
+ * Content set through a {@link ContentProvider} is created once its tab is
+ * selected for the first time, and might be unloaded again according to an
+ * {@link UnloadPolicy}.
  * 
  * @see #putDockable(Object, Dockable)
  * @see #removeDockable(Object)
  */
 public class TabbedDock extends Dock {
 
+	/**
+	 * The client property of the tabbed pane holding whether tabs that do not
+	 * fit should be hidden instead of squeezed, interpreted by UIs supporting
+	 * it.
+	 * 
+	 * @see #setOverflow(boolean)
+	 */
+	public static final String OVERFLOW_PROPERTY = "TabbedDock.overflow";
+
 	private static EmptyBorder emptyBorder = new EmptyBorder(0, 0, 0, 0);
 
 	private JTabbedPane tabbedPane = createTabbedPane();
 
 	/**
-	 * All tabs.
+	 * All tabs by key, in order of their creation.
 	 */
-	private List<Tab> tabs = new ArrayList<Tab>();
+	private Map<Object, Tab> tabs = new LinkedHashMap<Object, Tab>();
+
+	/**
+	 * All tabs with a dockable by their dockable.
+	 */
+	private Map<Dockable, Tab> dockableTabs = new HashMap<Dockable, Tab>();
+
+	/**
+	 * The order of the next created tab, decreasing so that newer tabs
+	 * precede older ones.
+	 */
+	private int nextOrder = 0;
+
+	/**
+	 * The currently selected tab.
+	 */
+	private Tab selectedTab;
+
+	/**
+	 * The policy for unloading of content, may be <code>null</code>.
+	 */
+	private UnloadPolicy unloadPolicy;
+
+	/**
+	 * Hidden tabs with unloadable content to the time they were hidden at, in
+	 * order of hiding.
+	 */
+	private Map<Tab, Long> hiddenTabs = new LinkedHashMap<Tab, Long>();
+
+	/**
+	 * Timer for periodic checks of the unload policy.
+	 */
+	private Timer unloadTimer;
 
 	/**
 	 * Constructor.
@@ -72,10 +128,152 @@ public class TabbedDock extends Dock {
 		setLayout(new BorderLayout());
 
 		tabbedPane = createTabbedPane();
+		tabbedPane.addChangeListener(new ChangeListener() {
+			public void stateChanged(ChangeEvent e) {
+				selectionChanged();
+			}
+		});
 
 		add(tabbedPane);
 	}
 
+	/**
+	 * Set whether tabs that do not fit at their full width should be hidden
+	 * instead of squeezed, if supported by the UI of the tabbed pane. The
+	 * setting is kept as a client property of the tabbed pane, so it survives
+	 * changes of its UI.
+	 * 
+	 * @param overflow
+	 *            should tabs overflow
+	 * @see #OVERFLOW_PROPERTY
+	 */
+	public void setOverflow(boolean overflow) {
+		tabbedPane.putClientProperty(OVERFLOW_PROPERTY, Boolean
+				.valueOf(overflow));
+	}
+
+	public boolean isOverflow() {
+		return Boolean.TRUE.equals(tabbedPane
+				.getClientProperty(OVERFLOW_PROPERTY));
+	}
+
+	/**
+	 * Set the policy for unloading of content of hidden tabs.
+	 * 
+	 * @param unloadPolicy
+	 *            policy or <code>null</code> to never unload content
+	 */
+	public void setUnloadPolicy(UnloadPolicy unloadPolicy) {
+		this.unloadPolicy = unloadPolicy;
+
+		hiddenTabs.clear();
+		if (unloadPolicy != null) {
+			for (Tab tab : tabs.values()) {
+				if (tab != selectedTab) {
+					hidden(tab);
+				}
+			}
+			unload();
+		}
+		updateUnloadTimer();
+	}
+
+	public UnloadPolicy getUnloadPolicy() {
+		return unloadPolicy;
+	}
+
+	private void selectionChanged() {
+		Tab tab = (Tab) tabbedPane.getSelectedComponent();
+
+		if (selectedTab != null && selectedTab != tab) {
+			hidden(selectedTab);
+		}
+		selectedTab = tab;
+
+		if (tab != null) {
+			hiddenTabs.remove(tab);
+			tab.createContent();
+		}
+
+		unload();
+		updateUnloadTimer();
+	}
+
+	/**
+	 * The given tab was hidden.
+	 */
+	private void hidden(Tab tab) {
+		if (unloadPolicy != null && tab.isUnloadable()) {
+			hiddenTabs.put(tab, Long.valueOf(System.currentTimeMillis()));
+		}
+	}
+
+	/**
+	 * Unload the content of hidden tabs according to the unload policy.
+	 */
+	private void unload() {
+		if (unloadPolicy == null) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		boolean heapExceeded = unloadPolicy.isHeapExceeded();
+		int maxLoaded = unloadPolicy.getMaxLoaded();
+
+		Iterator<Map.Entry<Tab, Long>> entries = hiddenTabs.entrySet()
+				.iterator();
+		while (entries.hasNext()) {
+			Map.Entry<Tab, Long> entry = entries.next();
+
+			if (heapExceeded
+					|| (maxLoaded != -1 && hiddenTabs.size() > maxLoaded)
+					|| unloadPolicy.isIdle(entry.getValue().longValue(), now)) {
+				entries.remove();
+
+				entry.getKey().unloadContent();
+			}
+		}
+	}
+
+	private void updateUnloadTimer() {
+		boolean checking = unloadPolicy != null && unloadPolicy.isChecking()
+				&& !hiddenTabs.isEmpty() && isDisplayable();
+
+		if (checking) {
+			if (unloadTimer == null) {
+				unloadTimer = new Timer(unloadPolicy.getCheckInterval(),
+						new ActionListener() {
+							public void actionPerformed(ActionEvent e) {
+								unload();
+								updateUnloadTimer();
+							}
+						});
+			}
+			unloadTimer.setDelay(unloadPolicy.getCheckInterval());
+			if (!unloadTimer.isRunning()) {
+				unloadTimer.start();
+			}
+		} else {
+			if (unloadTimer != null) {
+				unloadTimer.stop();
+			}
+		}
+	}
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+
+		updateUnloadTimer();
+	}
+
+	@Override
+	public void removeNotify() {
+		super.removeNotify();
+
+		updateUnloadTimer();
+	}
+
 	@Override
 	public JComponent getDragInitiator() {
 		return tabbedPane;
@@ -92,10 +290,8 @@ public class TabbedDock extends Dock {
 
 	@Override
 	public List<Object> getDockableKeys() {
-		List<Object> keys = new ArrayList<Object>();
-		for (Tab tab : tabs) {
-			keys.add(tab.getKey());
-		}
+		List<Object> keys = new ArrayList<Object>(tabs.keySet());
+		Collections.reverse(keys);
 		return keys;
 	}
 
@@ -113,7 +309,7 @@ public class TabbedDock extends Dock {
 		Tab tab = getTab(key);
 		if (tab == null) {
 			tab = new Tab(key);
-			tabs.add(0, tab);
+			tabs.put(key, tab);
 		}
 
 		Dockable old = tab.getDockable();
@@ -174,7 +370,7 @@ public class TabbedDock extends Dock {
 		Dockable dockable = tab.getDockable();
 		tab.setDockable(null);
 		tab.dispose();	
-		tabs.remove(tab);
+		tabs.remove(key);
 
 		fireDockChanged();
 
@@ -195,10 +391,10 @@ public class TabbedDock extends Dock {
 	public List<Object> getVisibleDockableKeys() {
 		List<Object> keys = new ArrayList<Object>();
 
-		for (Tab tab : tabs) {
-			if (tab.getDockable() != null) {
-				keys.add(tab.getKey());
-			}
+		// visible tabs are contained in the tabbed pane in order
+		for (int t = 0; t < tabbedPane.getTabCount(); t++) {
+			Tab tab = (Tab) tabbedPane.getComponentAt(t);
+			keys.add(tab.getKey());
 		}
 
 		return keys;
@@ -240,21 +436,11 @@ public class TabbedDock extends Dock {
 	}
 
 	private Tab getTab(Object key) {
-		for (Tab tab : tabs) {
-			if (tab.hasKey(key)) {
-				return tab;
-			}
-		}
-		return null;
+		return tabs.get(key);
 	}
 
 	private Tab getTab(Dockable dockable) {
-		for (Tab tab : tabs) {
-			if (tab.getDockable() != null && tab.getDockable().equals(dockable)) {
-				return tab;
-			}
-		}
-		return null;
+		return dockableTabs.get(dockable);
 	}
 
 	/**
@@ -274,41 +460,66 @@ public class TabbedDock extends Dock {
 		return content;
 	}
 
-	private class Tab extends JPanel implements Docked {
+	private class Tab extends JPanel implements LazyDocked {
 
 		private Object key;
 
+		/**
+		 * The order of this tab, tabs with lower order precede.
+		 */
+		private int order;
+
 		private Dockable dockable;
 
-		private JPanel header = new JPanel();
+		/**
+		 * The header, created on demand.
+		 */
+		private JPanel header;
 
-		private JToolBar toolBar = new JToolBar() {
-			@Override
-			protected void paintComponent(Graphics g) {
-				// radical, but the only way to make sure that no decoration
-				// is painted on the toolbar background
-			}
-		};
+		private JToolBar toolBar;
 
-		private JLabel statusLabel = new JLabel();
+		private JLabel statusLabel;
 
 		private JComponent content;
 
+		/**
+		 * The provider of the content, may be <code>null</code>.
+		 */
+		private ContentProvider contentProvider;
+
 		private Tab(Object key) {
 			if (key == null) {
 				throw new IllegalArgumentException("key must not be null");
 			}
 			this.key = key;
+			this.order = nextOrder--;
 
 			setLayout(new BorderLayout());
 			setOpaque(false);
+		}
+
+		/**
+		 * Create the header with toolbar and status if not already created.
+		 */
+		private void createHeader() {
+			if (header != null) {
+				return;
+			}
 
+			header = new JPanel();
 			header.setLayout(new FloatingLayout());
 			header.setBorder(new LineBorder());
 			header.setOpaque(false);
 			header.setVisible(false);
 			add(header, BorderLayout.NORTH);
 
+			toolBar = new JToolBar() {
+				@Override
+				protected void paintComponent(Graphics g) {
+					// radical, but the only way to make sure that no decoration
+					// is painted on the toolbar background
+				}
+			};
 			if (UIManager.getLookAndFeel().getName().toLowerCase().indexOf("windows") != -1) {
 				toolBar.setRollover(true);
 			}
@@ -320,6 +531,7 @@ public class TabbedDock extends Dock {
 			toolBar.setAlignmentX(FloatingLayout.FLOAT_RIGHT);
 			header.add(toolBar);
 
+			statusLabel = new JLabel();
 			statusLabel.setOpaque(false);
 			statusLabel.setVisible(false);
 			statusLabel.setAlignmentX(FloatingLayout.FLOAT_LEFT);
@@ -329,10 +541,6 @@ public class TabbedDock extends Dock {
 		public void dispose() {
 			key = null;
 		}
-		
-		public boolean hasKey(Object key) {
-			return this.key.equals(key);
-		}
 
 		private Object getKey() {
 			return key;
@@ -347,15 +555,20 @@ public class TabbedDock extends Dock {
 			Tab selectedTab = (Tab) tabbedPane.getSelectedComponent();
 
 			if (this.dockable != null) {
+				dockableTabs.remove(this.dockable);
 				tabbedPane.remove(this);
+				hiddenTabs.remove(this);
 
-				toolBar.removeAll();
-				setStatus(null);
+				if (header != null) {
+					toolBar.removeAll();
+					setStatus(null);
+				}
 
 				if (content != null) {
 					remove(content);
 					content = null;
 				}
+				contentProvider = null;
 
 				this.dockable.undocked();
 			}
@@ -363,16 +576,8 @@ public class TabbedDock extends Dock {
 			this.dockable = dockable;
 
 			if (this.dockable != null) {
-				int visibleIndex = 0;
-				for (Tab tab : tabs) {
-					if (tab == this) {
-						break;
-					}
-					if (tab.getDockable() != null) {
-						visibleIndex++;
-					}
-				}
-				tabbedPane.add(this, visibleIndex);
+				dockableTabs.put(dockable, this);
+				tabbedPane.add(this, getVisibleIndex());
 
 				dockable.docked(this);
 			}
@@ -385,19 +590,67 @@ public class TabbedDock extends Dock {
 			repaint();
 		}
 
+		/**
+		 * Get the index of this tab in the tabbed pane, i.e. the count of
+		 * visible tabs preceding this tab.
+		 * 
+		 * @return visible index
+		 */
+		private int getVisibleIndex() {
+			int low = 0;
+			int high = tabbedPane.getTabCount();
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (((Tab) tabbedPane.getComponentAt(middle)).order < order) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Get the index of this tab in the tabbed pane.
+		 * 
+		 * @return index or <code>-1</code> if not contained
+		 */
+		private int getIndex() {
+			int index = getVisibleIndex();
+			if (index == tabbedPane.getTabCount()
+					|| tabbedPane.getComponentAt(index) != this) {
+				return -1;
+			}
+			return index;
+		}
+
 		public void setTitle(String title) {
-			int index = tabbedPane.indexOfComponent(this);
+			int index = getIndex();
+
+			String oldTitle = tabbedPane.getTitleAt(index);
+			if (title == null ? oldTitle == null : title.equals(oldTitle)) {
+				return;
+			}
 
 			tabbedPane.setTitleAt(index, title);
 		}
 
 		public void setIcon(Icon icon) {
-			int index = tabbedPane.indexOfComponent(this);
+			int index = getIndex();
+
+			if (tabbedPane.getIconAt(index) == icon) {
+				return;
+			}
 
 			tabbedPane.setIconAt(index, icon);
 		}
 
 		public void setStatus(String status) {
+			if (status == null && header == null) {
+				return;
+			}
+			createHeader();
+
 			statusLabel.setText(status);
 			statusLabel.setVisible(status != null);
 
@@ -408,6 +661,8 @@ public class TabbedDock extends Dock {
 		}
 
 		public JButton addTool(Action action) {
+			createHeader();
+
 			JButton button = toolBar.add(action);
 			button.setOpaque(false);
 			
@@ -428,6 +683,8 @@ public class TabbedDock extends Dock {
 		}
 
 		public JComponent addTool(JComponent component) {
+			createHeader();
+
 			toolBar.add(component);
 
 			// allow keyboard focus ...
@@ -443,6 +700,8 @@ public class TabbedDock extends Dock {
 		}
 
 		public void addToolSeparator() {
+			createHeader();
+
 			toolBar.addSeparator();
 			toolBar.setVisible(true);
 
@@ -450,6 +709,10 @@ public class TabbedDock extends Dock {
 		}
 
 		public void clearTools() {
+			if (header == null) {
+				return;
+			}
+
 			toolBar.removeAll();
 			toolBar.setVisible(false);
 
@@ -461,6 +724,12 @@ public class TabbedDock extends Dock {
 		}
 
 		public void setContent(JComponent content) {
+			this.contentProvider = null;
+
+			installContent(content);
+		}
+
+		private void installContent(JComponent content) {
 			if (this.content != null) {
 				remove(this.content);
 			}
@@ -475,5 +744,45 @@ public class TabbedDock extends Dock {
 			repaint();
 		}
 
+		public void setContent(ContentProvider provider) {
+			this.contentProvider = null;
+			installContent(null);
+
+			this.contentProvider = provider;
+
+			if (tabbedPane.getSelectedComponent() == this) {
+				createContent();
+			}
+		}
+
+		/**
+		 * Create the content if a provider is set and the content is not
+		 * already created.
+		 */
+		private void createContent() {
+			if (contentProvider != null && content == null) {
+				installContent(contentProvider.createContent());
+			}
+		}
+
+		/**
+		 * Is the content created by a provider, so it can be unloaded.
+		 */
+		private boolean isUnloadable() {
+			return contentProvider != null && content != null;
+		}
+
+		/**
+		 * Unload the content created by a provider.
+		 */
+		private void unloadContent() {
+			if (isUnloadable()) {
+				JComponent unloaded = content;
+
+				installContent(null);
+
+				contentProvider.contentUnloaded(unloaded);
+			}
+		}
 	}
 }
\ No newline at end of file
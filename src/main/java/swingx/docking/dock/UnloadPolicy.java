@@ -0,0 +1,201 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking.dock;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+import swingx.docking.ContentProvider;
+
+/**
+ * A policy for unloading the content of tabs that are not selected, see
+ * {@link TabbedDock#setUnloadPolicy(UnloadPolicy)}.
+ * <br>
+ * Only content created by a {@link ContentProvider} can be unloaded, it is
+ * created again once its tab is selected.
+ * 
+ * @see ContentProvider#contentUnloaded(javax.swing.JComponent)
+ */
+public class UnloadPolicy {
+
+	/**
+	 * Milliseconds a tab has to be hidden before its content is unloaded,
+	 * <code>0</code> for no limit.
+	 */
+	private long idleTime = 0;
+
+	/**
+	 * The fraction of the maximum heap that has to be used after collections
+	 * before contents of all hidden tabs are unloaded, <code>0</code> for no
+	 * limit.
+	 */
+	private float heapThreshold = 0.0f;
+
+	/**
+	 * The maximum count of hidden tabs keeping their content,
+	 * <code>-1</code> for no limit.
+	 */
+	private int maxLoaded = -1;
+
+	/**
+	 * Milliseconds between checks of idle time and heap usage.
+	 */
+	private int checkInterval = 1000;
+
+	/**
+	 * The heap pools reporting their usage after collections.
+	 */
+	private static List<MemoryPoolMXBean> heapPools;
+
+	public long getIdleTime() {
+		return idleTime;
+	}
+
+	/**
+	 * Set the time a tab has to be hidden before its content is unloaded.
+	 * 
+	 * @param idleTime
+	 *            time in milliseconds, <code>0</code> for no limit
+	 */
+	public void setIdleTime(long idleTime) {
+		if (idleTime < 0) {
+			throw new IllegalArgumentException("idleTime must not be negative");
+		}
+		this.idleTime = idleTime;
+	}
+
+	public float getHeapThreshold() {
+		return heapThreshold;
+	}
+
+	/**
+	 * Set the fraction of the maximum heap that has to be used before
+	 * contents of all hidden tabs are unloaded.
+	 * 
+	 * @param heapThreshold
+	 *            fraction between <code>0</code> and <code>1</code>,
+	 *            <code>0</code> for no limit
+	 */
+	public void setHeapThreshold(float heapThreshold) {
+		if (heapThreshold < 0.0f || heapThreshold > 1.0f) {
+			throw new IllegalArgumentException(
+					"heapThreshold must be between 0 and 1");
+		}
+		this.heapThreshold = heapThreshold;
+	}
+
+	public int getMaxLoaded() {
+		return maxLoaded;
+	}
+
+	/**
+	 * Set the maximum count of hidden tabs keeping their content, the least
+	 * recently selected tabs are unloaded first.
+	 * 
+	 * @param maxLoaded
+	 *            maximum count, <code>-1</code> for no limit
+	 */
+	public void setMaxLoaded(int maxLoaded) {
+		if (maxLoaded < -1) {
+			throw new IllegalArgumentException("maxLoaded must be -1 or more");
+		}
+		this.maxLoaded = maxLoaded;
+	}
+
+	public int getCheckInterval() {
+		return checkInterval;
+	}
+
+	/**
+	 * Set the interval of checks for idle time and heap usage.
+	 * 
+	 * @param checkInterval
+	 *            interval in milliseconds
+	 */
+	public void setCheckInterval(int checkInterval) {
+		if (checkInterval <= 0) {
+			throw new IllegalArgumentException("checkInterval must be positive");
+		}
+		this.checkInterval = checkInterval;
+	}
+
+	/**
+	 * Does this policy need periodic checks.
+	 * 
+	 * @return <code>true</code> if idle time or heap usage is limited
+	 */
+	public boolean isChecking() {
+		return idleTime > 0 || heapThreshold > 0.0f;
+	}
+
+	/**
+	 * Should the content of a tab be unloaded.
+	 * 
+	 * @param hiddenSince
+	 *            time in milliseconds the tab was hidden at
+	 * @param now
+	 *            current time in milliseconds
+	 * @return <code>true</code> if the tab is idle long enough
+	 */
+	public boolean isIdle(long hiddenSince, long now) {
+		return idleTime > 0 && now - hiddenSince >= idleTime;
+	}
+
+	/**
+	 * Is the heap usage above the threshold. The usage is measured after the
+	 * most recent collections, since the current usage includes garbage that
+	 * is not yet collected.
+	 * 
+	 * @return <code>true</code> if contents of all hidden tabs should be
+	 *         unloaded
+	 */
+	public boolean isHeapExceeded() {
+		if (heapThreshold <= 0.0f) {
+			return false;
+		}
+
+		long used = 0;
+		for (MemoryPoolMXBean pool : getHeapPools()) {
+			MemoryUsage usage = pool.getCollectionUsage();
+			if (usage != null) {
+				used += usage.getUsed();
+			}
+		}
+
+		return used > Runtime.getRuntime().maxMemory() * heapThreshold;
+	}
+
+	private static synchronized List<MemoryPoolMXBean> getHeapPools() {
+		if (heapPools == null) {
+			heapPools = new ArrayList<MemoryPoolMXBean>();
+			for (MemoryPoolMXBean pool : ManagementFactory
+					.getMemoryPoolMXBeans()) {
+				if (pool.getType() == MemoryType.HEAP
+						&& pool.isCollectionUsageThresholdSupported()) {
+					heapPools.add(pool);
+				}
+			}
+		}
+		return heapPools;
+	}
+}
@@ -0,0 +1,476 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking.persistence;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import swingx.docking.Docking;
+import swingx.docking.DockingPane;
+import swingx.docking.Layout;
+import swingx.docking.Persister;
+
+/**
+ * <code>Persister</code> implementation that persists the state of a
+ * {@link DockingPane} in a compact binary format.
+ * <br>
+ * The format starts with a magic number and its own format version, followed
+ * by the optional application version and a table of all keys, each key
+ * written only once and referenced by its index. The dockings follow in a
+ * length-prefixed block.
+ * 
+ * @see #toXML(BinaryPersister, XMLPersister)
+ * @see #fromXML(XMLPersister, BinaryPersister)
+ */
+public class BinaryPersister extends Persister {
+
+	private static final int MAGIC = 0x53574458;
+
+	private static final int FORMAT = 1;
+
+	private static final byte SLICE = 1;
+
+	private static final byte MULTI_SLICE = 2;
+
+	private static final byte DOCK = 3;
+
+	private static final byte BRIDGE = 4;
+
+	private static final byte NULL = 1;
+
+	private static final byte SELECTED = 2;
+
+	/**
+	 * The maximum length of the block of dockings, guarding against
+	 * allocations for corrupt data.
+	 */
+	private static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+	/**
+	 * The minimum count of bytes written for each child of a multi slice and
+	 * for each dockable of a dock.
+	 */
+	private static final int MIN_ENTRY_LENGTH = 5;
+
+	/**
+	 * The maximum nesting depth of nodes, guarding against stack overflows
+	 * for corrupt data.
+	 */
+	private static final int MAX_DEPTH = 1024;
+
+	private String version;
+
+	/**
+	 * The stream to write to.
+	 */
+	private OutputStream output;
+
+	/**
+	 * The stream to read from.
+	 */
+	private InputStream input;
+
+	/**
+	 * Create a new persister that reads the state of the given
+	 * <code>DockingPane</code> from the given stream.
+	 * 
+	 * @param dockingPane
+	 *            the <code>DockingPane</code> to load state for
+	 * @param input
+	 *            the stream to read from
+	 * @param version
+	 *            the expected version, may be <code>null</code>
+	 */
+	public BinaryPersister(DockingPane dockingPane, InputStream input,
+			String version) {
+		super(dockingPane);
+
+		this.input = input;
+		this.version = version;
+	}
+
+	/**
+	 * Create a new persister that writes the state of the given
+	 * <code>DockingPane</code> to the given stream.
+	 * 
+	 * @param dockingPane
+	 *            the <code>DockingPane</code> to save state for
+	 * @param output
+	 *            the stream to write to
+	 * @param version
+	 *            the version to write, may be <code>null</code>
+	 */
+	public BinaryPersister(DockingPane dockingPane, OutputStream output,
+			String version) {
+		super(dockingPane);
+
+		this.output = output;
+		this.version = version;
+	}
+
+	protected List<Docking> loadDockings() throws IOException {
+		return createDockings(readLayout());
+	}
+
+	protected void saveDockings(List<Docking> dockings) throws IOException {
+		writeLayout(createLayout(dockings));
+	}
+
+	/**
+	 * Read the layout from the stream - may be called from any thread, since
+	 * no components are created.
+	 * 
+	 * @return the read layout
+	 * @throws IOException
+	 *             if reading fails or the data is invalid
+	 */
+	public Layout readLayout() throws IOException {
+		if (input == null) {
+			throw new IllegalStateException("no input");
+		}
+
+		DataInputStream data = new DataInputStream(input);
+		try {
+			if (data.readInt() != MAGIC) {
+				throw new IOException("no layout");
+			}
+			int format = data.readInt();
+			if (format != FORMAT) {
+				throw new IOException("unsupported format " + format);
+			}
+			String written = null;
+			if (data.readBoolean()) {
+				written = data.readUTF();
+			}
+			if (version != null && !version.equals(written)) {
+				throw new IOException("invalid version " + written + " != "
+						+ version);
+			}
+
+			// each key is referenced at least once by its index in the block
+			int count = readCount(data, MAX_LENGTH / 4);
+			List<Object> keyTable = new ArrayList<Object>();
+			for (int k = 0; k < count; k++) {
+				keyTable.add(parseKey(data.readUTF()));
+			}
+			Object[] keys = keyTable.toArray();
+
+			int length = data.readInt();
+			if (length < 0 || length > MAX_LENGTH) {
+				throw new IOException("invalid length " + length);
+			}
+			byte[] block = new byte[length];
+			data.readFully(block);
+
+			DataInputStream in = new DataInputStream(
+					new ByteArrayInputStream(block));
+			List<Layout.DockingNode> dockings = new ArrayList<Layout.DockingNode>();
+			for (int d = in.readInt(); d > 0; d--) {
+				Rectangle screenBounds = new Rectangle();
+				screenBounds.x = in.readInt();
+				screenBounds.y = in.readInt();
+				screenBounds.width = in.readInt();
+				screenBounds.height = in.readInt();
+
+				dockings.add(new Layout.DockingNode(screenBounds, read(in,
+						keys, 0)));
+			}
+			if (in.available() > 0) {
+				throw new IOException("unexpected data");
+			}
+
+			return new Layout(dockings);
+		} catch (EOFException ex) {
+			throw new IOException("truncated layout");
+		} catch (IllegalArgumentException ex) {
+			IOException ex2 = new IOException(ex.getMessage());
+			ex2.initCause(ex);
+			throw ex2;
+		}
+	}
+
+	private Layout.Node read(DataInputStream in, Object[] keys, int depth)
+			throws IOException {
+		if (depth == MAX_DEPTH) {
+			throw new IOException("nesting too deep");
+		}
+		depth++;
+
+		byte type = in.readByte();
+		switch (type) {
+		case SLICE:
+			int orientation = in.readInt();
+			float weight = in.readFloat();
+
+			return new Layout.SliceNode(orientation, weight, read(in, keys,
+					depth), read(in, keys, depth));
+		case MULTI_SLICE:
+			orientation = in.readInt();
+
+			int count = readCount(in, in.available() / MIN_ENTRY_LENGTH);
+			float[] weights = new float[count];
+			Layout.Node[] children = new Layout.Node[count];
+			for (int c = 0; c < count; c++) {
+				weights[c] = in.readFloat();
+				children[c] = read(in, keys, depth);
+			}
+
+			return new Layout.MultiSliceNode(orientation, weights, children);
+		case DOCK:
+			count = readCount(in, in.available() / MIN_ENTRY_LENGTH);
+			Object[] dockKeys = new Object[count];
+			boolean[] nulls = new boolean[count];
+			int selected = -1;
+			for (int k = 0; k < count; k++) {
+				dockKeys[k] = key(in.readInt(), keys);
+
+				byte flags = in.readByte();
+				nulls[k] = (flags & NULL) != 0;
+				if ((flags & SELECTED) != 0) {
+					selected = k;
+				}
+			}
+
+			return new Layout.DockNode(dockKeys, nulls, selected);
+		case BRIDGE:
+			Object key = key(in.readInt(), keys);
+
+			return new Layout.BridgeNode(key, in.readBoolean());
+		default:
+			throw new IOException("unknown node type " + type);
+		}
+	}
+
+	/**
+	 * Read a count, rejecting it before anything is allocated for it if it
+	 * exceeds the given maximum.
+	 */
+	private static int readCount(DataInputStream in, int max)
+			throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > max) {
+			throw new IOException("invalid count " + count);
+		}
+		return count;
+	}
+
+	private Object key(int index, Object[] keys) throws IOException {
+		if (index < 0 || index >= keys.length) {
+			throw new IOException("invalid key index " + index);
+		}
+		return keys[index];
+	}
+
+	/**
+	 * Write the given layout to the stream - may be called from any thread.
+	 * 
+	 * @param layout
+	 *            layout to write
+	 * @throws IOException
+	 *             if writing fails or a key cannot be formatted
+	 */
+	public void writeLayout(Layout layout) throws IOException {
+		checkWritable();
+
+		List<String> keys = new ArrayList<String>();
+		Map<Object, Integer> keyToIndex = new HashMap<Object, Integer>();
+
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(block);
+		out.writeInt(layout.getDockings().size());
+		for (Layout.DockingNode docking : layout.getDockings()) {
+			Rectangle screenBounds = docking.getScreenBounds();
+			out.writeInt(screenBounds.x);
+			out.writeInt(screenBounds.y);
+			out.writeInt(screenBounds.width);
+			out.writeInt(screenBounds.height);
+
+			write(docking.getRoot(), out, keys, keyToIndex, 0);
+		}
+		out.flush();
+		if (block.size() > MAX_LENGTH) {
+			throw new IOException("layout too large");
+		}
+
+		DataOutputStream data = new DataOutputStream(output);
+		data.writeInt(MAGIC);
+		data.writeInt(FORMAT);
+		data.writeBoolean(version != null);
+		if (version != null) {
+			data.writeUTF(version);
+		}
+		data.writeInt(keys.size());
+		for (String key : keys) {
+			data.writeUTF(key);
+		}
+		data.writeInt(block.size());
+		block.writeTo(data);
+		data.flush();
+	}
+
+	private void write(Layout.Node node, DataOutputStream out,
+			List<String> keys, Map<Object, Integer> keyToIndex, int depth)
+			throws IOException {
+		if (depth == MAX_DEPTH) {
+			throw new IOException("nesting too deep");
+		}
+		depth++;
+
+		if (node instanceof Layout.SliceNode) {
+			Layout.SliceNode slice = (Layout.SliceNode) node;
+
+			out.writeByte(SLICE);
+			out.writeInt(slice.getOrientation());
+			out.writeFloat(slice.getWeight());
+			write(slice.getMain(), out, keys, keyToIndex, depth);
+			write(slice.getRemainder(), out, keys, keyToIndex, depth);
+		} else if (node instanceof Layout.MultiSliceNode) {
+			Layout.MultiSliceNode multiSlice = (Layout.MultiSliceNode) node;
+
+			out.writeByte(MULTI_SLICE);
+			out.writeInt(multiSlice.getOrientation());
+			out.writeInt(multiSlice.getChildCount());
+			for (int c = 0; c < multiSlice.getChildCount(); c++) {
+				out.writeFloat(multiSlice.getWeight(c));
+				write(multiSlice.getChild(c), out, keys, keyToIndex, depth);
+			}
+		} else if (node instanceof Layout.DockNode) {
+			Layout.DockNode dock = (Layout.DockNode) node;
+
+			out.writeByte(DOCK);
+			out.writeInt(dock.getKeyCount());
+			for (int k = 0; k < dock.getKeyCount(); k++) {
+				out.writeInt(intern(dock.getKey(k), keys, keyToIndex));
+
+				byte flags = 0;
+				if (dock.isNull(k)) {
+					flags |= NULL;
+				}
+				if (k == dock.getSelected()) {
+					flags |= SELECTED;
+				}
+				out.writeByte(flags);
+			}
+		} else if (node instanceof Layout.BridgeNode) {
+			Layout.BridgeNode bridge = (Layout.BridgeNode) node;
+
+			out.writeByte(BRIDGE);
+			out.writeInt(intern(bridge.getKey(), keys, keyToIndex));
+			out.writeBoolean(bridge.isNull());
+		} else {
+			throw new IOException("unknown node " + node);
+		}
+	}
+
+	protected void checkWritable() {
+		if (output == null) {
+			throw new IllegalStateException("no output");
+		}
+	}
+
+	/**
+	 * Get the index of the given key in the key table, adding it if not
+	 * already contained.
+	 */
+	private int intern(Object key, List<String> keys,
+			Map<Object, Integer> keyToIndex) throws IOException {
+		Integer index = keyToIndex.get(key);
+		if (index == null) {
+			index = Integer.valueOf(keys.size());
+			keys.add(formatKey(key));
+			keyToIndex.put(key, index);
+		}
+		return index.intValue();
+	}
+
+	/**
+	 * Format the given key, may be overriden by subclasses that want to
+	 * support arbitrary key classes.
+	 * 
+	 * @param key
+	 *            key to format, must be an instance of <code>String</code>
+	 * @return formatted key
+	 * @throws IOException
+	 *             if key is no <code>String</code> instance
+	 */
+	protected String formatKey(Object key) throws IOException {
+		if (key instanceof String) {
+			return (String) key;
+		} else {
+			throw new IOException("String keys supported only");
+		}
+	}
+
+	/**
+	 * Parse the given key, may be overriden by subclasses that want to
+	 * support arbitrary key classes.
+	 * 
+	 * @param key
+	 *            key to parse
+	 * @return parsed key
+	 * @throws IOException
+	 *             never
+	 */
+	protected Object parseKey(String key) throws IOException {
+		return key;
+	}
+
+	/**
+	 * Convert a layout in binary format to XML. The keys are parsed and
+	 * formatted by the given persisters, so subclasses supporting other key
+	 * classes can be converted too.
+	 * 
+	 * @param input
+	 *            persister to read binary format with
+	 * @param output
+	 *            persister to write XML with
+	 * @throws IOException
+	 */
+	public static void toXML(BinaryPersister input, XMLPersister output)
+			throws IOException {
+		output.writeLayout(input.readLayout());
+	}
+
+	/**
+	 * Convert a layout in XML to binary format. The keys are parsed and
+	 * formatted by the given persisters, so subclasses supporting other key
+	 * classes can be converted too.
+	 * 
+	 * @param input
+	 *            persister to read XML with
+	 * @param output
+	 *            persister to write binary format with
+	 * @throws IOException
+	 */
+	public static void fromXML(XMLPersister input, BinaryPersister output)
+			throws IOException {
+		output.writeLayout(input.readLayout());
+	}
+}
@@ -26,36 +26,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
 
-import javax.swing.JComponent;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.sax.SAXSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.xml.sax.Attributes;
-import org.xml.sax.ContentHandler;
-import org.xml.sax.DTDHandler;
-import org.xml.sax.EntityResolver;
-import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.helpers.DefaultHandler;
 
-import swingx.docking.Bridge;
-import swingx.docking.Dock;
-import swingx.docking.Dockable;
 import swingx.docking.Docking;
 import swingx.docking.DockingPane;
+import swingx.docking.Layout;
 import swingx.docking.Persister;
-import swingx.docking.Slice;
 
 /**
  * <code>Persister</code> implementation that persists the state of a
@@ -63,9 +46,11 @@ import swingx.docking.Slice;
  */
 public class XMLPersister extends Persister {
 
-    private static String NONE = "";
-    
-    private static Attributes EMPTY_ATTRIBUTES = new AttributesImpl();           
+
+    /**
+     * Factory shared by all persisters, looked up only once.
+     */
+    private static SAXParserFactory factory = SAXParserFactory.newInstance();
 	
     private String version;
     	
@@ -79,7 +64,16 @@ public class XMLPersister extends Persister {
      */
     private Reader reader;
     
-    private List<Docking> dockings;
+    /**
+     * The buffer XML is written to before it is passed to the writer, reused
+     * for all saves.
+     */
+    private StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Characters passed to the writer in one go.
+     */
+    private char[] chunk = new char[4096];
     
     /**
      * Create a new persister that parses the state of the given <code>DockingPane</code>
@@ -110,6 +104,17 @@ public class XMLPersister extends Persister {
     }
 
     protected List<Docking> loadDockings() throws IOException {
+        return createDockings(readLayout());
+    }
+    
+    /**
+     * Parse the layout from the reader - may be called from any thread, since
+     * no components are created.
+     * 
+     * @return  the parsed layout
+     * @throws IOException  if reading fails or the XML is invalid
+     */
+    public Layout readLayout() throws IOException {
         if (reader == null ) {
             throw new IllegalStateException("no reader");
         }
@@ -117,37 +122,205 @@ public class XMLPersister extends Persister {
         try {
 			InputSource source = new InputSource(reader);        
 			
-			SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
-			parser.parse(source, new SAXIn());
-		} catch (ParserConfigurationException e) {
-			throw new Error(e);
+			SAXIn in = new SAXIn();
+			newSAXParser().parse(source, in);
+			return in.getLayout();
 		} catch (SAXException e) {
 			IOException ex = new IOException(e.getMessage());
 			ex.initCause(e);
 			throw ex;
 		}
-        
-        return dockings;
+    }
+
+    /**
+     * Create a parser from the shared factory.
+     * 
+     * @return  new parser
+     */
+    private static SAXParser newSAXParser() {
+        // SAXParserFactory is not guaranteed to be thread-safe
+        synchronized (factory) {
+            try {
+                return factory.newSAXParser();
+            } catch (ParserConfigurationException e) {
+                throw new Error(e);
+            } catch (SAXException e) {
+                throw new Error(e);
+            }
+        }
     }
     
     protected void saveDockings(List<Docking> dockings) throws IOException {
-        if (writer == null ) {
-            throw new IllegalStateException("no writer");
-        }
-        
-        this.dockings = dockings;
+        writeLayout(createLayout(dockings));
+    }
+    
+    /**
+     * Write the given layout to the writer - may be called from any thread.
+     * 
+     * @param layout    layout to write
+     * @throws IOException  if writing fails or a key cannot be formatted
+     */
+    public void writeLayout(Layout layout) throws IOException {
+        checkWritable();
         
+        buffer.setLength(0);
         try {
-			Source source = new SAXSource(new SAXOut(), new InputSource());
-			Result target = new StreamResult(writer);
-			
-			Transformer transformer = TransformerFactory.newInstance().newTransformer();
-			transformer.transform(source, target);
-		} catch (TransformerException e) {
+            buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+
+            buffer.append("<dockingPane");
+            if (version != null) {
+                attribute("version", version);
+            }
+            buffer.append('>');
+            
+            for (Layout.DockingNode docking : layout.getDockings()) {
+                Rectangle screenBounds = docking.getScreenBounds();
+                buffer.append("<docking");
+                attribute("x"     , screenBounds.x);
+                attribute("y"     , screenBounds.y);
+                attribute("width" , screenBounds.width);
+                attribute("height", screenBounds.height);
+                buffer.append('>');
+                
+                write(docking.getRoot());
+
+                buffer.append("</docking>");
+            }
+
+            buffer.append("</dockingPane>");
+		} catch (SAXException e) {
 			IOException ex = new IOException(e.getMessage());
 			ex.initCause(e);
 			throw ex;
 		}
+        flush();
+    }
+
+    protected void checkWritable() {
+        if (writer == null) {
+            throw new IllegalStateException("no writer");
+        }
+    }
+    
+    private void write(Layout.Node node) throws IOException, SAXException {
+        if (node instanceof Layout.SliceNode) {
+            Layout.SliceNode slice = (Layout.SliceNode)node;
+
+            buffer.append("<slice");
+            attribute("orientation", slice.getOrientation());
+            buffer.append(" weight=\"").append((double)slice.getWeight()).append('"');
+            buffer.append('>');
+            
+            write(slice.getMain());
+            write(slice.getRemainder());
+
+            buffer.append("</slice>");
+        } else if (node instanceof Layout.MultiSliceNode) {
+            Layout.MultiSliceNode multiSlice = (Layout.MultiSliceNode)node;
+
+            buffer.append("<multiSlice");
+            attribute("orientation", multiSlice.getOrientation());
+            buffer.append(" weights=\"");
+            for (int c = 0; c < multiSlice.getChildCount(); c++) {
+                if (c > 0) {
+                    buffer.append(',');
+                }
+                buffer.append(multiSlice.getWeight(c));
+            }
+            buffer.append("\">");
+
+            for (int c = 0; c < multiSlice.getChildCount(); c++) {
+                write(multiSlice.getChild(c));
+            }
+
+            buffer.append("</multiSlice>");
+        } else if (node instanceof Layout.DockNode) {
+            Layout.DockNode dock = (Layout.DockNode)node;
+          
+            if (dock.getKeyCount() == 0) {
+                buffer.append("<dock/>");
+            } else {
+                buffer.append("<dock>");
+
+                for (int k = 0; k < dock.getKeyCount(); k++) {
+                    buffer.append("<dockable");
+                    attribute("key", formatKey(dock.getKey(k)));
+                    if (dock.isNull(k)) {
+                        attribute("null", "true");
+                    }
+                    if (k == dock.getSelected()) {
+                        attribute("selected", "true");
+                    }
+                    buffer.append("/>");
+                }
+                
+                buffer.append("</dock>");
+            }
+        } else if (node instanceof Layout.BridgeNode) {
+            Layout.BridgeNode bridge = (Layout.BridgeNode)node;
+              
+            buffer.append("<bridge");
+            attribute("key", formatKey(bridge.getKey()));
+            if (bridge.isNull()) {
+                attribute("null", "true");
+            }
+            buffer.append("/>");
+        } else {
+            throw new SAXException("unknown node " + node);
+        }
+        
+        if (buffer.length() >= chunk.length) {
+            flush();
+        }
+    }
+    
+    private void attribute(String name, int value) {
+        buffer.append(' ').append(name).append("=\"").append(value).append('"');
+    }
+    
+    /**
+     * Append an attribute, escaping its value.
+     */
+    private void attribute(String name, String value) {
+        buffer.append(' ').append(name).append("=\"");
+        for (int c = 0; c < value.length(); c++) {
+            char character = value.charAt(c);
+            switch (character) {
+            case '&':
+                buffer.append("&amp;");
+                break;
+            case '<':
+                buffer.append("&lt;");
+                break;
+            case '>':
+                buffer.append("&gt;");
+                break;
+            case '"':
+                buffer.append("&quot;");
+                break;
+            default:
+                if (character < ' ') {
+                    // control characters including tab, LF and CR
+                    buffer.append("&#").append((int)character).append(';');
+                } else {
+                    buffer.append(character);
+                }
+            }
+        }
+        buffer.append('"');
+    }
+
+    /**
+     * Write the buffered XML to the writer.
+     */
+    private void flush() throws IOException {
+        int length = buffer.length();
+        for (int offset = 0; offset < length; offset += chunk.length) {
+            int count = Math.min(chunk.length, length - offset);
+            buffer.getChars(offset, offset + count, chunk, 0);
+            writer.write(chunk, 0, count);
+        }
+        buffer.setLength(0);
     }
 
     /**
@@ -178,231 +351,197 @@ public class XMLPersister extends Persister {
         return key;
     }
     
-    private class SAXOut implements XMLReader {
-
-    	/**
-         * The <code>ContentHandler</code> of the <code>Transformer</code>.
-         */
-        private ContentHandler handler;
-        
-        public void parse(InputSource input) throws IOException, SAXException {
-            handler.startDocument();
-
-            AttributesImpl attributes = new AttributesImpl();
-            if (version != null) {
-                attributes.addAttribute(NONE, NONE, "version", NONE, version);
-            }
-
-            handler.startElement(NONE, NONE, "dockingPane", attributes);
-
-            for (int d = 0; d < dockings.size(); d++) {
-                write(dockings.get(d), handler);
-            }
-
-            handler.endElement(NONE, NONE, "dockingPane");
-
-            handler.endDocument();
-        }        
-
-        protected void write(JComponent component, ContentHandler handler) throws SAXException {
-            if (component instanceof Docking) {
-                Docking docking = (Docking)component;
-
-                AttributesImpl attributes = new AttributesImpl();
-                Rectangle screenBounds = docking.getScreenBounds();
-                attributes.addAttribute(NONE, NONE, "x"     , NONE, Integer.toString(screenBounds.x));
-                attributes.addAttribute(NONE, NONE, "y"     , NONE, Integer.toString(screenBounds.y));
-                attributes.addAttribute(NONE, NONE, "width" , NONE, Integer.toString(screenBounds.width));
-                attributes.addAttribute(NONE, NONE, "height", NONE, Integer.toString(screenBounds.height));
-
-                handler.startElement(NONE, NONE, "docking", attributes);
-                
-                write(docking.getRoot(), handler);          
-
-                handler.endElement(NONE, NONE, "docking");
-            } else if (component instanceof Slice) {
-                Slice slice = (Slice)component;
-
-                AttributesImpl attributes = new AttributesImpl();
-                attributes.addAttribute(NONE, NONE, "orientation", NONE, Integer.toString(slice.getOrientation()));
-                attributes.addAttribute(NONE, NONE, "weight"  , NONE, Double.toString(slice.getWeight()));
-
-                handler.startElement(NONE, NONE, "slice", attributes);
-                
-                write(slice.getMain(), handler);          
-                write(slice.getRemainder(), handler);
-
-                handler.endElement(NONE, NONE, "slice");
-            } else if (component instanceof Dock) {
-                Dock dock = (Dock)component;
-              
-                handler.startElement(NONE, NONE, "dock", EMPTY_ATTRIBUTES);
-
-                List<Object> keys = dock.getDockableKeys();
-                for (int k = keys.size() - 1; k >= 0; k--) {
-                    Object   key      = keys.get(k);
-                    Dockable dockable = dock.getDockable(key);
-                    
-                    AttributesImpl attributes = new AttributesImpl();
-                    attributes = new AttributesImpl();
-                    attributes.addAttribute(NONE, NONE, "key", NONE, formatKey(key));
-                    if (dockable == null) {
-                        attributes.addAttribute(NONE, NONE, "null", NONE, "true");
-                    }
-                    if (dockable != null && dockable == dock.getSelectedDockable()) {
-                        attributes.addAttribute(NONE, NONE, "selected", NONE, "true");
-                    }
-
-                    handler.startElement(NONE, NONE, "dockable", attributes);
-                    handler.endElement(NONE, NONE, "dockable");
-                }
-                
-                handler.endElement(NONE, NONE, "dock");
-            } else if (component instanceof Bridge) {
-                Bridge bridge = (Bridge)component;
-                Object     key     = bridge.getKey();
-                JComponent bridged = bridge.getBridged();
-                  
-                AttributesImpl attributes = new AttributesImpl();
-                attributes.addAttribute(NONE, NONE, "key", NONE, formatKey(key));
-                if (bridged == null) {
-                    attributes.addAttribute(NONE, NONE, "null", NONE, "true");
-                }
-
-                handler.startElement(NONE, NONE, "bridge", attributes);
-                handler.endElement(NONE, NONE, "bridge");
-            } else {
-                throw new SAXException("unknown component " + component);
-            }        
-        }
-
-        public ContentHandler getContentHandler() {
-            return handler;
-        }
-
-        public void setContentHandler(ContentHandler handler) {
-            this.handler = handler;
-        }
+    private class SAXIn extends DefaultHandler {
         
-        public DTDHandler getDTDHandler() { return null; }
-
-        public EntityResolver getEntityResolver() { return null; }
-
-        public ErrorHandler getErrorHandler() { return null; }
-
-        public boolean getFeature(String name) { return false; }
-
-        public Object getProperty(String name) { return null; }
-
-        public void parse(String systemId) throws IOException, SAXException { }
+        private Stack<Element> stack = new Stack<Element>();
         
-        public void setDTDHandler(DTDHandler handler) { }
-
-        public void setEntityResolver(EntityResolver resolver) { }
-
-        public void setErrorHandler(ErrorHandler handler) { }
-
-        public void setFeature(String name, boolean value) { }
+        private List<Layout.DockingNode> dockings;
 
-        public void setProperty(String name, Object value) { }
-    }
-    
-    private class SAXIn extends DefaultHandler {
-        
-        private Stack<Object> stack = new Stack<Object>();
+        private Layout layout;
         
         public void startElement(String namespaceURI, String localName,
                 String qName, Attributes atts) throws SAXException {
 
+            Element element = new Element();
+            
             if ("dockingPane".equals(qName)) {
+                if (!stack.isEmpty()) {
+                    throw new SAXException("unexpected dockingPane");
+                }
             	if (version != null && !version.equals(atts.getValue("version"))) {
             		throw new SAXException("invalid version " + atts.getValue("version") + " != " + version);
             	}
-                dockings = new ArrayList<Docking>();
-                stack.push(dockings);
+                dockings = new ArrayList<Layout.DockingNode>();
             } else if ("docking".equals(qName)) {
-                Docking docking = createDocking();
-
-                Rectangle screenBounds = new Rectangle();
-                screenBounds.x      = Integer.parseInt(atts.getValue("x"));
-                screenBounds.y      = Integer.parseInt(atts.getValue("y"));
-                screenBounds.width  = Integer.parseInt(atts.getValue("width"));
-                screenBounds.height = Integer.parseInt(atts.getValue("height"));
-
-                docking.setScreenBounds(screenBounds);
-                
-                dockings.add(docking);
-                
-                stack.push(docking);
+                if (stack.size() != 1 || dockings == null) {
+                    throw new SAXException("unexpected docking");
+                }
+                element.screenBounds = new Rectangle();
+                element.screenBounds.x      = parseInt(atts, "x");
+                element.screenBounds.y      = parseInt(atts, "y");
+                element.screenBounds.width  = parseInt(atts, "width");
+                element.screenBounds.height = parseInt(atts, "height");
+                element.capacity = 1;
             } else if ("slice".equals(qName)) {
-                Slice slice = createSlice();
-
-                slice.setOrientation(Integer.parseInt(atts.getValue("orientation")));
-                slice.setWeight  (Float.parseFloat(atts.getValue("weight")));
-                
-                add(slice);
-                
-                stack.push(slice);
+                checkNested(qName);
+                element.orientation = parseInt(atts, "orientation");
+                element.weights     = new float[]{parseFloat(getValue(atts, "weight"))};
+                element.capacity = 2;
+            } else if ("multiSlice".equals(qName)) {
+                checkNested(qName);
+                element.orientation = parseInt(atts, "orientation");
+
+                String[] values = getValue(atts, "weights").split(",");
+                element.weights = new float[values.length];
+                for (int v = 0; v < values.length; v++) {
+                    element.weights[v] = parseFloat(values[v]);
+                }
+                element.capacity = values.length;
             } else if ("dock".equals(qName)) {
-                Dock dock = createDock();
-
-                add(dock);
-
-                stack.push(dock);
+                checkNested(qName);
+                element.keys     = new ArrayList<Object>();
+                element.nulls    = new ArrayList<Boolean>();
+                element.selected = -1;
             } else if ("bridge".equals(qName)) {
-                Object key = parseKey(atts.getValue("key"));
-                Bridge bridge = createBridge();
-
-                JComponent bridged = null;
-                if (!new Boolean(atts.getValue("null")).booleanValue()) {
-                    bridged = resolveComponent(key);
-                }
-                bridge.setBridged(key, bridged);
-                
-                add(bridge);
-                
-                stack.push(bridge);
+                checkNested(qName);
+                element.key    = parseKey(getValue(atts, "key"));
+                element.isNull = Boolean.valueOf(atts.getValue("null")).booleanValue();
             } else if ("dockable".equals(qName)) {
-                Object key = parseKey(atts.getValue("key"));
-                Dockable dockable = null;
-                if (!new Boolean(atts.getValue("null")).booleanValue()) {
-                    dockable = resolveDockable(key);
+                Element dock = stack.isEmpty() ? null : stack.peek();
+                if (dock == null || dock.keys == null) {
+                    throw new SAXException("unexpected dockable");
                 }
                 
-                Dock dock = (Dock)stack.peek();
-                dock.putDockable(key, dockable);
-                if (dockable != null && new Boolean(atts.getValue("selected")).booleanValue()) {
-                    dock.setSelectedDockable(dockable);
+                boolean isNull = Boolean.valueOf(atts.getValue("null")).booleanValue();
+                if (!isNull && Boolean.valueOf(atts.getValue("selected")).booleanValue()) {
+                    dock.selected = dock.keys.size();
                 }
-                
-                stack.push(dockable);
+                dock.keys.add(parseKey(getValue(atts, "key")));
+                dock.nulls.add(Boolean.valueOf(isNull));
             } else {
                 throw new SAXException("unkown qName '" + qName + "'");
             }
+            
+            stack.push(element);
         }
-       
-        private void add(JComponent component) throws SAXException {
-            JComponent parent = (JComponent)stack.peek();
-                
-            if (parent instanceof Docking) {
-                Docking docking = (Docking)parent;
-                docking.setRoot(component);
-            } else if (parent instanceof Slice) {
-                Slice slice = (Slice)parent;
-                if (slice.getMain() == null) {
-                    slice.setMain(component);
-                } else if (slice.getRemainder() == null) {
-                    slice.setRemainder(component);
+        
+        public void endElement(String namespaceURI, String localName, String qName) throws SAXException {
+            Element element = stack.pop();
+            
+            try {
+                Layout.Node node;
+                if ("dockingPane".equals(qName)) {
+                    layout = new Layout(dockings);
+                    return;
+                } else if ("docking".equals(qName)) {
+                    checkComplete(element);
+                    dockings.add(new Layout.DockingNode(element.screenBounds, element.children.get(0)));
+                    return;
+                } else if ("slice".equals(qName)) {
+                    checkComplete(element);
+                    node = new Layout.SliceNode(element.orientation, element.weights[0], element.children.get(0), element.children.get(1));
+                } else if ("multiSlice".equals(qName)) {
+                    checkComplete(element);
+                    node = new Layout.MultiSliceNode(element.orientation, element.weights, element.children.toArray(new Layout.Node[element.capacity]));
+                } else if ("dock".equals(qName)) {
+                    boolean[] nulls = new boolean[element.nulls.size()];
+                    for (int n = 0; n < nulls.length; n++) {
+                        nulls[n] = element.nulls.get(n).booleanValue();
+                    }
+                    node = new Layout.DockNode(element.keys.toArray(), nulls, element.selected);
+                } else if ("bridge".equals(qName)) {
+                    node = new Layout.BridgeNode(element.key, element.isNull);
                 } else {
+                    // dockable
+                    return;
+                }
+                
+                Element parent = stack.isEmpty() ? null : stack.peek();
+                if (parent == null || parent.children.size() == parent.capacity) {
                     throw new SAXException("unexpected additional child");
                 }
-            } else {
-                throw new SAXException("unexpected parent");
+                parent.children.add(node);
+            } catch (IllegalArgumentException ex) {
+                throw new SAXException(ex.getMessage(), ex);
             }
         }
-  
-        public void endElement(String namespaceURI, String localName, String qName) throws SAXException {
-            stack.pop();
+        
+        private void checkComplete(Element element) throws SAXException {
+            if (element.children.size() != element.capacity) {
+                throw new SAXException("missing child");
+            }
+        }
+
+        /**
+         * Check that a node is nested in a docking, slice or multiSlice.
+         */
+        private void checkNested(String qName) throws SAXException {
+            if (stack.isEmpty() || stack.peek().capacity == 0) {
+                throw new SAXException("unexpected " + qName);
+            }
+        }
+
+        /**
+         * Get the value of a required attribute.
+         */
+        private String getValue(Attributes atts, String name) throws SAXException {
+            String value = atts.getValue(name);
+            if (value == null) {
+                throw new SAXException("missing attribute '" + name + "'");
+            }
+            return value;
+        }
+
+        private int parseInt(Attributes atts, String name) throws SAXException {
+            try {
+                return Integer.parseInt(getValue(atts, name));
+            } catch (NumberFormatException ex) {
+                throw new SAXException(ex);
+            }
+        }
+
+        private float parseFloat(String value) throws SAXException {
+            try {
+                return Float.parseFloat(value);
+            } catch (NumberFormatException ex) {
+                throw new SAXException(ex);
+            }
+        }
+        
+        public Layout getLayout() throws SAXException {
+            if (layout == null) {
+                throw new SAXException("missing dockingPane");
+            }
+            return layout;
         }
     }
+    
+    /**
+     * An element currently parsed by {@link SAXIn}.
+     */
+    private static class Element {
+        
+        private Rectangle screenBounds;
+        
+        private int orientation;
+        
+        private float[] weights;
+
+        /**
+         * The maximum count of child nodes.
+         */
+        private int capacity;
+        
+        private List<Layout.Node> children = new ArrayList<Layout.Node>();
+        
+        private List<Object> keys;
+
+        private List<Boolean> nulls;
+
+        private int selected;
+        
+        private Object key;
+        
+        private boolean isNull;
+    }
 }
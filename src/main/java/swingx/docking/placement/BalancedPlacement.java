@@ -0,0 +1,139 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking.placement;
+
+import java.util.LinkedList;
+
+import javax.swing.JComponent;
+
+import swingx.docking.Docking;
+import swingx.docking.MultiSlice;
+import swingx.docking.Placement;
+import swingx.docking.Slice;
+
+/**
+ * A <code>Placement</code> that slices the least deeply nested dock or
+ * bridge, keeping the depth of the slice hierarchy logarithmic to the count
+ * of contained components.
+ * <br>
+ * The hierarchy is searched breadth first. The search is resumed on the next
+ * placement into the same docking, as long as the docking was modified by the
+ * previous placement only, so that consecutive placements take constant time
+ * on average. Otherwise the search starts at the root again, which takes time
+ * linear to the count of contained components.
+ */
+public class BalancedPlacement implements Placement {
+
+	public JComponent getTarget(Docking docking, JComponent component) {
+		// suspended search is kept as client property keyed by this placement
+		Search search = (Search) docking.getClientProperty(this);
+		if (search == null || !search.resume(docking)) {
+			search = new Search(docking);
+			docking.putClientProperty(this, search);
+		}
+
+		return search.next(docking, component);
+	}
+
+	/**
+	 * A breadth first search for the least deeply nested dock or bridge.
+	 */
+	private static class Search {
+
+		/**
+		 * Components still to search, spanning at most two levels of the
+		 * hierarchy.
+		 */
+		private LinkedList<JComponent> queue = new LinkedList<JComponent>();
+
+		/**
+		 * The previous target.
+		 */
+		private JComponent target;
+
+		/**
+		 * The component placed at the previous target.
+		 */
+		private JComponent component;
+
+		/**
+		 * The count of modifications of the docking after the previous
+		 * target was sliced.
+		 */
+		private int modifications;
+
+		public Search(Docking docking) {
+			queue.add(docking.getRoot());
+		}
+
+		/**
+		 * Resume this search, possible only if the previous target was sliced
+		 * and the docking was not modified otherwise.
+		 * 
+		 * @param docking
+		 *            docking to search
+		 * @return <code>true</code> if resumed
+		 */
+		public boolean resume(Docking docking) {
+			if (target == null
+					|| docking.getModificationCount() != modifications) {
+				return false;
+			}
+
+			if (!(target.getParent() instanceof Slice)) {
+				return false;
+			}
+			Slice slice = (Slice) target.getParent();
+			if (slice.getMain() != component
+					|| slice.getRemainder() != target) {
+				return false;
+			}
+
+			// both are nested one level deeper than the previous target
+			queue.add(component);
+			queue.add(target);
+
+			return true;
+		}
+
+		public JComponent next(Docking docking, JComponent component) {
+			while (true) {
+				JComponent candidate = queue.removeFirst();
+				if (candidate instanceof Slice) {
+					Slice slice = (Slice) candidate;
+
+					queue.add(slice.getMain());
+					queue.add(slice.getRemainder());
+				} else if (candidate instanceof MultiSlice) {
+					MultiSlice multiSlice = (MultiSlice) candidate;
+
+					for (int c = 0; c < multiSlice.getChildCount(); c++) {
+						queue.add(multiSlice.getChild(c));
+					}
+				} else {
+					this.target = candidate;
+					this.component = component;
+					this.modifications = docking.getModificationCount() + 1;
+
+					return candidate;
+				}
+			}
+		}
+	}
+}
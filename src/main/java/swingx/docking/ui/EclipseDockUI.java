@@ -2,7 +2,9 @@ package swingx.docking.ui;
 
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Container;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.GradientPaint;
 import java.awt.Graphics;
@@ -10,16 +12,43 @@ import java.awt.Graphics2D;
 import java.awt.Insets;
 import java.awt.KeyboardFocusManager;
 import java.awt.LayoutManager;
-import java.awt.Paint;
 import java.awt.Rectangle;
 import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ContainerEvent;
+import java.awt.event.ContainerListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Area;
+import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
+import javax.swing.Icon;
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
+import javax.swing.JTabbedPane;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.plaf.TabbedPaneUI;
 import javax.swing.plaf.basic.BasicTabbedPaneUI;
 
+import swingx.docking.dock.TabbedDock;
+
 public class EclipseDockUI extends BasicTabbedPaneUI {
 
 	private boolean activated = false;
@@ -29,28 +58,154 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
     protected ColorSchema activeColors;
     protected ColorSchema inactiveColors;
     
-    private FocusHandler focusHandler = new FocusHandler();
+    /**
+     * The color of borders, cached for the background it was derived from.
+     */
+    private Color borderColor;
+    private Color borderColorBackground;
+    
+    /**
+     * The tracker of focus shared by all installed UIs.
+     */
+    private static FocusTracker focusTracker;
+    
+    /**
+     * The window of the tabbed pane, cached until the hierarchy changes.
+     */
+    private Window window;
+    private boolean windowValid = false;
+    
+    private HierarchyHandler hierarchyHandler = new HierarchyHandler();
+    
+    /**
+     * Should tabs that do not fit be hidden instead of squeezed, kept in sync
+     * with the client property of the tabbed pane.
+     * 
+     * @see TabbedDock#OVERFLOW_PROPERTY
+     */
+    private boolean overflow = false;
+    
+    /**
+     * The maximum number of remembered recently selected tabs.
+     */
+    private static final int MAX_RECENT_TABS = 16;
+    
+    /**
+     * Tab components in order of their selection, most recent first.
+     */
+    private List<Component> recentTabs = new LinkedList<Component>();
+    
+    /**
+     * Which tabs are shown in overflow mode.
+     */
+    private boolean[] shownTabs = new boolean[0];
+    
+    /**
+     * Indices of the shown tabs in overflow mode, in order.
+     */
+    private int[] shownIndices = new int[0];
+    private int shownCount = 0;
+    private int hiddenTabCount = 0;
+    
+    /**
+     * The bounds of the indicator of hidden tabs.
+     */
+    private Rectangle overflowRect = new Rectangle();
+    
+    private OverflowHandler overflowHandler = new OverflowHandler();
     
     protected void installListeners() {
     	super.installListeners();
     	
-    	KeyboardFocusManager.getCurrentKeyboardFocusManager().addPropertyChangeListener(focusHandler);
+    	tabPane.addHierarchyListener(hierarchyHandler);
+    	tabPane.addChangeListener(overflowHandler);
+    	tabPane.addMouseListener(overflowHandler);
+    	tabPane.addContainerListener(overflowHandler);
+    	tabPane.addPropertyChangeListener(TabbedDock.OVERFLOW_PROPERTY, overflowHandler);
+    	
+    	if (focusTracker == null) {
+    		focusTracker = new FocusTracker();
+    		KeyboardFocusManager.getCurrentKeyboardFocusManager().addPropertyChangeListener(focusTracker);
+    	}
+    	focusTracker.add(this);
     }
     
     protected void uninstallListeners() {
-    	KeyboardFocusManager.getCurrentKeyboardFocusManager().removePropertyChangeListener(focusHandler);
+    	focusTracker.remove(this);
+    	if (focusTracker.isEmpty()) {
+    		KeyboardFocusManager.getCurrentKeyboardFocusManager().removePropertyChangeListener(focusTracker);
+    		focusTracker = null;
+    	}
+    	
+    	tabPane.removeHierarchyListener(hierarchyHandler);
+    	windowValid = false;
+    	window = null;
+    	
+    	tabPane.removeChangeListener(overflowHandler);
+    	tabPane.removeMouseListener(overflowHandler);
+    	tabPane.removeContainerListener(overflowHandler);
+    	tabPane.removePropertyChangeListener(TabbedDock.OVERFLOW_PROPERTY, overflowHandler);
+    	recentTabs.clear();
 
     	super.uninstallListeners();    	
     }
     
+    /**
+     * Set whether tabs that do not fit at their full width should be hidden
+     * instead of squeezed. Hidden tabs are reachable through a popup, most
+     * recently selected tabs are kept visible.
+     * <br>
+     * Once installed the setting is kept as client property of the tabbed
+     * pane, so it survives changes of the UI.
+     * 
+     * @param overflow
+     *            should tabs overflow
+     * @see TabbedDock#setOverflow(boolean)
+     */
+    public void setOverflow(boolean overflow) {
+    	if (tabPane == null) {
+    		this.overflow = overflow;
+    	} else {
+    		// survives a change of the UI
+    		tabPane.putClientProperty(TabbedDock.OVERFLOW_PROPERTY, Boolean.valueOf(overflow));
+    	}
+    }
+    
+    public boolean isOverflow() {
+    	return overflow;
+    }
+    
+    /**
+     * Get the window of the tabbed pane.
+     * 
+     * @return window or <code>null</code>
+     */
+    protected Window getWindow() {
+    	if (!windowValid) {
+    		window = SwingUtilities.getWindowAncestor(tabPane);
+    		windowValid = true;
+    	}
+    	return window;
+    }
+    
     protected void installDefaults() {
         super.installDefaults();
         
+        Object overflow = tabPane.getClientProperty(TabbedDock.OVERFLOW_PROPERTY);
+        if (overflow == null) {
+        	tabPane.putClientProperty(TabbedDock.OVERFLOW_PROPERTY, Boolean.valueOf(this.overflow));
+        } else {
+        	this.overflow = Boolean.TRUE.equals(overflow);
+        }
+        
         tabInsets = new Insets(4, 4, 4, 4);
         tabAreaInsets = new Insets(0, 0, 0, 20);
         contentBorderInsets = new Insets(3,3,3,3);
         selectedTabPadInsets = new Insets(0, 0, 0, 0);
         
+        borderColor = null;
+        borderColorBackground = null;
+        
         selectedColors = new ColorSchema(UIManager.getColor("TabbedPane.foreground"),
         								 UIManager.getColor("TabbedPane.highlight"),
         								 UIManager.getColor("Panel.background"));
@@ -102,7 +257,7 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
         g.setColor(getSelectionColors().getBackground2());
         g.fillRect(x, y + tabAreaHeight, w, h - tabAreaHeight);
         
-        g.setColor(tabPane.getBackground().darker());
+        g.setColor(getBorderColor());
         g.drawLine(x        , y + 2    , x        , y + h - 1);
         g.drawLine(x + w - 1, y + 2    , x + w - 1, y + h - 1);
         g.drawLine(x        , y + h - 1, x + w - 1, y + h - 1);
@@ -125,23 +280,15 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
             int tabIndex, int x, int y, int w, int h, boolean isSelected) {
         
         if (isSelected) {
-            Graphics2D g2 = (Graphics2D)g;
-            Paint savePaint = g2.getPaint();
-
             ColorSchema colors = getSelectionColors();
-            GradientPaint titleGradient = new GradientPaint(0,0, colors.getBackground1(),
-                                                            0,h, colors.getBackground2());
-            g2.setPaint(titleGradient);
-            g.fillRect(x + 1, y + 1, w - 2, h);
-            
-            g2.setPaint(savePaint);
+            g.drawImage(colors.getTile(y + 1, h), x + 1, y + 1, w - 2, h, null);
         }
     }
     
     protected void paintTabBorder(Graphics g, int tabPlacement, int tabIndex,
             int x, int y, int w, int h, boolean isSelected) {
         
-        g.setColor(tabPane.getBackground().darker());
+        g.setColor(getBorderColor());
         if (isSelected) {
             g.drawLine(x        , y + 2    , x        , y + h - 1);
             g.drawLine(x + w - 1, y + 2    , x + w - 1, y + h - 1);
@@ -155,12 +302,153 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
         }
     }
     
+    protected void paintTab(Graphics g, int tabPlacement, Rectangle[] rects,
+    		int tabIndex, Rectangle iconRect, Rectangle textRect) {
+    	
+    	// hidden in overflow mode
+    	if (rects[tabIndex].width == 0) {
+    		return;
+    	}
+    	
+    	super.paintTab(g, tabPlacement, rects, tabIndex, iconRect, textRect);
+    }
+    
+    /**
+     * Overridden to paint only the shown tabs in overflow mode.
+     */
+    protected void paintTabArea(Graphics g, int tabPlacement, int selectedIndex) {
+    	if (!overflow) {
+    		super.paintTabArea(g, tabPlacement, selectedIndex);
+    		return;
+    	}
+    	
+    	Rectangle iconRect = new Rectangle();
+    	Rectangle textRect = new Rectangle();
+    	Rectangle clipRect = g.getClipBounds();
+    	int tabCount = tabPane.getTabCount();
+    	
+    	for (int s = 0; s < shownCount; s++) {
+    		int t = shownIndices[s];
+    		if (t != selectedIndex && t < tabCount && (clipRect == null || rects[t].intersects(clipRect))) {
+    			paintTab(g, tabPlacement, rects, t, iconRect, textRect);
+    		}
+    	}
+    	if (selectedIndex >= 0 && selectedIndex < tabCount && (clipRect == null || rects[selectedIndex].intersects(clipRect))) {
+    		paintTab(g, tabPlacement, rects, selectedIndex, iconRect, textRect);
+    	}
+    	
+    	if (hiddenTabCount > 0) {
+    		paintOverflowIndicator(g, overflowRect, hiddenTabCount);
+    	}
+    }
+    
+    /**
+     * Overridden to measure only the shown tabs in overflow mode.
+     */
+    protected int calculateMaxTabHeight(int tabPlacement) {
+    	if (!overflow || shownCount == 0) {
+    		return super.calculateMaxTabHeight(tabPlacement);
+    	}
+    	
+    	FontMetrics metrics = getFontMetrics();
+    	int tabCount = tabPane.getTabCount();
+    	int height = 0;
+    	for (int s = 0; s < shownCount; s++) {
+    		int t = shownIndices[s];
+    		if (t < tabCount) {
+    			height = Math.max(height, calculateTabHeight(tabPlacement, t, metrics.getHeight()));
+    		}
+    	}
+    	return height;
+    }
+    
+    /**
+     * Paint the indicator of hidden tabs in overflow mode.
+     */
+    protected void paintOverflowIndicator(Graphics g, Rectangle rect, int count) {
+    	String text = "\u00bb" + count;
+    	
+    	g.setFont(tabPane.getFont());
+    	g.setColor(tabPane.getForeground());
+    	
+    	FontMetrics metrics = g.getFontMetrics();
+    	int x = rect.x + Math.max(0, (rect.width - metrics.stringWidth(text)) / 2);
+    	int y = rect.y + (rect.height - metrics.getHeight()) / 2 + metrics.getAscent();
+    	g.drawString(text, x, y);
+    }
+    
+    /**
+     * Show a popup with all hidden tabs in overflow mode.
+     */
+    protected void showOverflowPopup() {
+    	JPopupMenu popup = new JPopupMenu();
+    	
+    	for (int t = 0; t < tabPane.getTabCount(); t++) {
+    		if (t < shownTabs.length && shownTabs[t]) {
+    			continue;
+    		}
+    		
+    		final Component component = tabPane.getComponentAt(t);
+    		JMenuItem item = new JMenuItem(tabPane.getTitleAt(t), tabPane.getIconAt(t));
+    		item.addActionListener(new ActionListener() {
+    			public void actionPerformed(ActionEvent e) {
+    				tabPane.setSelectedComponent(component);
+    			}
+    		});
+    		popup.add(item);
+    	}
+    	
+    	popup.show(tabPane, overflowRect.x, overflowRect.y + overflowRect.height);
+    }
+    
     protected void paintFocusIndicator(Graphics g, int tabPlacement,
             Rectangle[] rects, int tabIndex, Rectangle iconRect,
             Rectangle textRect, boolean isSelected) {
     }
     
+    /**
+     * Widths of tabs by their component, cached for their title, icon and
+     * font.
+     */
+    private Map<Component, TabWidth> widths = new WeakHashMap<Component, TabWidth>();
+    private Font widthFont;
+    
+    /**
+     * Overridden to calculate the width of a tab only if its title, icon or
+     * the font changed.
+     */
+    protected int calculateTabWidth(int tabPlacement, int tabIndex, FontMetrics metrics) {
+    	Font font = metrics.getFont();
+    	if (font != widthFont) {
+    		widths.clear();
+    		widthFont = font;
+    	}
+    	
+    	Component component = tabPane.getComponentAt(tabIndex);
+    	if (component == null) {
+    		return super.calculateTabWidth(tabPlacement, tabIndex, metrics);
+    	}
+    	
+    	String title = tabPane.getTitleAt(tabIndex);
+    	Icon icon = tabPane.getIconAt(tabIndex);
+    	TabWidth width = widths.get(component);
+    	if (width == null || !width.matches(title, icon)) {
+    		width = new TabWidth(title, icon, super.calculateTabWidth(tabPlacement, tabIndex, metrics));
+    		widths.put(component, width);
+    	}
+    	return width.width;
+    }
+    
     protected class EclipseLayout extends TabbedPaneLayout {
+    	
+        /**
+         * Overridden as tabs are always laid out in a single run, so widths of
+         * tabs need not be measured to count runs.
+         */
+        protected int preferredTabAreaHeight(int tabPlacement, int width) {
+        	return calculateTabAreaHeight(tabPlacement, 1, calculateMaxTabHeight(tabPlacement));
+        }
+        
         protected void calculateTabRects(int tabPlacement, int tabCount) {
             FontMetrics metrics = getFontMetrics();
             Dimension size = tabPane.getSize();
@@ -172,6 +460,21 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
             int w = size.width - insets.left - tabAreaInsets.left - insets.right - tabAreaInsets.right;
             
             runCount = 1;
+            
+            if (overflow) {
+            	calculateOverflowTabRects(tabPlacement, tabCount, metrics, x, y, w);
+            	
+            	if (hiddenTabCount > 0) {
+            		overflowRect.setBounds(x + w, y, tabAreaInsets.right, maxTabHeight);
+            	} else {
+            		overflowRect.setBounds(0, 0, 0, 0);
+            	}
+            	return;
+            }
+            hiddenTabCount = 0;
+            shownCount = 0;
+            overflowRect.setBounds(0, 0, 0, 0);
+            
             maxTabHeight = calculateMaxTabHeight(tabPlacement);
             maxTabWidth  = tabCount == 0 ? 0 : w / tabCount;
             
@@ -187,6 +490,118 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
                 x += rect.width;
             }
         }
+        
+        /**
+         * Calculate the rects of tabs in overflow mode: the selected tab and
+         * the most recently selected tabs are shown first, remaining space is
+         * filled with tabs in order. All other tabs are hidden with empty rects,
+         * so only shown tabs are measured and painted.
+         */
+        protected void calculateOverflowTabRects(int tabPlacement, int tabCount, FontMetrics metrics, int x, int y, int w) {
+        	if (shownTabs.length < tabCount) {
+        		shownTabs = new boolean[tabCount];
+        		shownIndices = new int[tabCount];
+        	} else {
+        		Arrays.fill(shownTabs, false);
+        	}
+        	hiddenTabCount = tabCount;
+        	shownCount = 0;
+        	maxTabWidth = w;
+        	
+        	int remaining = w;
+        	boolean full = false;
+        	
+        	int selectedIndex = tabPane.getSelectedIndex();
+        	if (selectedIndex >= 0 && selectedIndex < tabCount) {
+        		remaining -= showTab(selectedIndex, Math.min(remaining, calculateTabWidth(tabPlacement, selectedIndex, metrics)));
+        	}
+        	
+        	Iterator<Component> recent = recentTabs.iterator();
+        	while (!full && recent.hasNext()) {
+        		int t = tabPane.indexOfComponent(recent.next());
+        		if (t == -1) {
+        			recent.remove();
+        		} else if (!shownTabs[t]) {
+        			int width = calculateTabWidth(tabPlacement, t, metrics);
+        			if (width > remaining) {
+        				full = true;
+        			} else {
+        				remaining -= showTab(t, width);
+        			}
+        		}
+        	}
+        	
+        	for (int t = 0; !full && t < tabCount; t++) {
+        		if (!shownTabs[t]) {
+        			int width = calculateTabWidth(tabPlacement, t, metrics);
+        			if (width > remaining) {
+        				full = true;
+        			} else {
+        				remaining -= showTab(t, width);
+        			}
+        		}
+        	}
+        	
+        	for (int t = 0; t < tabCount; t++) {
+        		if (shownTabs[t]) {
+        			shownIndices[shownCount++] = t;
+        		}
+        	}
+        	maxTabHeight = calculateMaxTabHeight(tabPlacement);
+        	
+            for (int t = 0; t < tabCount; t++) {
+            	Rectangle rect = rects[t];
+            	if (shownTabs[t]) {
+            		rect.x = x;
+            		rect.y = y;
+            		rect.height = maxTabHeight;
+            		
+            		x += rect.width;
+            	} else {
+            		rect.setBounds(0, 0, 0, 0);
+            	}
+            }
+        }
+        
+        private int showTab(int tabIndex, int width) {
+        	shownTabs[tabIndex] = true;
+        	hiddenTabCount--;
+        	
+        	rects[tabIndex].width = width;
+        	
+        	return width;
+        }
+    }
+    
+    private class TabWidth {
+    	private String title;
+    	private Icon icon;
+    	private int width;
+    	
+    	public TabWidth(String title, Icon icon, int width) {
+    		this.title = title;
+    		this.icon = icon;
+    		this.width = width;
+    	}
+    	
+    	public boolean matches(String title, Icon icon) {
+    		return this.icon == icon && (title == null ? this.title == null : title.equals(this.title));
+    	}
+    }
+    
+    /**
+     * Get the color of borders, derived from the background of the tabbed
+     * pane.
+     * 
+     * @return border color
+     */
+    protected Color getBorderColor() {
+    	Color background = tabPane.getBackground();
+    	if (borderColor == null || !background.equals(borderColorBackground)) {
+    		borderColor = background.darker();
+    		borderColorBackground = background;
+    	}
+    	return borderColor;
     }
     
     protected ColorSchema getSelectionColors() {
@@ -203,6 +618,14 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
     	private Color foreground;
     	private Color background1;
     	private Color background2;
+    	
+    	/**
+    	 * A tile with the gradient from background1 to background2, cached
+    	 * for its offset and height.
+    	 */
+    	private BufferedImage tile;
+    	private int tileY;
+    	private int tileHeight;
 
     	public ColorSchema(Color foreground, Color background1, Color background2) {
         	this.foreground = foreground;
@@ -221,21 +644,154 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
     	public Color getBackground2() {
     		return background2;
     	}
+    	
+    	/**
+    	 * Get a tile of one pixel width with the gradient from background1 at
+    	 * <code>0</code> to background2 at <code>height</code>.
+    	 * 
+    	 * @param y
+    	 *            offset of the tile within the gradient
+    	 * @param height
+    	 *            height of the tile and the gradient
+    	 * @return tile
+    	 */
+    	public BufferedImage getTile(int y, int height) {
+    		if (tile == null || tileY != y || tileHeight != height) {
+    			tile = new BufferedImage(1, Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+    			
+    			Graphics2D g = tile.createGraphics();
+    			g.setPaint(new GradientPaint(0, -y, background1, 0, height - y, background2));
+    			g.fillRect(0, 0, 1, height);
+    			g.dispose();
+    			
+    			tileY = y;
+    			tileHeight = height;
+    		}
+    		return tile;
+    	}
+    }
+    
+    private class OverflowHandler extends MouseAdapter implements ChangeListener, ContainerListener, PropertyChangeListener {
+    	public void propertyChange(PropertyChangeEvent e) {
+    		overflow = Boolean.TRUE.equals(e.getNewValue());
+    		
+    		tabPane.revalidate();
+    		tabPane.repaint();
+    	}
+    	
+
+    	public void stateChanged(ChangeEvent e) {
+    		Component selected = tabPane.getSelectedComponent();
+    		if (selected != null) {
+    			recentTabs.remove(selected);
+    			recentTabs.add(0, selected);
+    			if (recentTabs.size() > MAX_RECENT_TABS) {
+    				recentTabs.remove(MAX_RECENT_TABS);
+    			}
+    		}
+    		
+    		if (overflow) {
+    			tabPane.revalidate();
+    		}
+    	}
+    	
+    	public void mousePressed(MouseEvent e) {
+    		if (overflow && hiddenTabCount > 0 && overflowRect.contains(e.getPoint())) {
+    			showOverflowPopup();
+    		}
+    	}
+    	
+    	public void componentAdded(ContainerEvent e) {
+    	}
+    	
+    	public void componentRemoved(ContainerEvent e) {
+    		recentTabs.remove(e.getChild());
+    	}
+    }
+    
+    private class HierarchyHandler implements HierarchyListener {
+    	public void hierarchyChanged(HierarchyEvent e) {
+    		if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0) {
+    			windowValid = false;
+    			window = null;
+    			
+    			if (focusTracker != null) {
+    				focusTracker.update(EclipseDockUI.this);
+    			}
+    		}
+    	}
     }
     
-    private class FocusHandler implements PropertyChangeListener {
+    /**
+     * A tracker of focus, determining the focused UIs and the active window
+     * once for each change of focus and notifying only UIs whose state
+     * changed.
+     */
+    private static class FocusTracker implements PropertyChangeListener {
+    	
+    	private Set<EclipseDockUI> uis = new HashSet<EclipseDockUI>();
+    	
+    	private List<EclipseDockUI> focusedUIs = new ArrayList<EclipseDockUI>();
+    	
+    	private Window activeWindow;
+    	
+    	public void add(EclipseDockUI ui) {
+    		uis.add(ui);
+    		
+    		update(ui);
+    	}
+    	
+    	public void remove(EclipseDockUI ui) {
+    		uis.remove(ui);
+    		focusedUIs.remove(ui);
+    	}
+    	
+    	public boolean isEmpty() {
+    		return uis.isEmpty();
+    	}
+    	
+    	/**
+    	 * Update the activation of the given UI, e.g. because its window
+    	 * changed.
+    	 */
+    	public void update(EclipseDockUI ui) {
+    		ui.setActive(activeWindow != null && activeWindow == ui.getWindow());
+    	}
+    	
     	public void propertyChange(PropertyChangeEvent evt) {
-    		Component focusOwner = KeyboardFocusManager.getCurrentKeyboardFocusManager().getPermanentFocusOwner();
-    		if (focusOwner == null) {
-    			setFocused(false);
-    		} else {
-    			setFocused(focusOwner == tabPane || SwingUtilities.isDescendingFrom(focusOwner, tabPane));
+    		String name = evt.getPropertyName();
+    		if (!"permanentFocusOwner".equals(name) && !"activeWindow".equals(name)) {
+    			return;
+    		}
+    		
+    		KeyboardFocusManager manager = KeyboardFocusManager.getCurrentKeyboardFocusManager();
+    		
+    		List<EclipseDockUI> focused = new ArrayList<EclipseDockUI>();
+    		for (Component component = manager.getPermanentFocusOwner(); component != null; component = component.getParent()) {
+    			if (component instanceof JTabbedPane) {
+    				TabbedPaneUI ui = ((JTabbedPane)component).getUI();
+    				if (uis.contains(ui)) {
+    					focused.add((EclipseDockUI)ui);
+    				}
+    			}
+    		}
+    		for (EclipseDockUI ui : focusedUIs) {
+    			if (!focused.contains(ui)) {
+    				ui.setFocused(false);
+    			}
     		}
-    		Window activeWindow = KeyboardFocusManager.getCurrentKeyboardFocusManager().getActiveWindow();
-    		if (activeWindow == null) {
-    			setActive(false);
-    		} else {
-    			setActive(activeWindow == SwingUtilities.getWindowAncestor(tabPane));
+    		for (EclipseDockUI ui : focused) {
+    			ui.setFocused(true);
+    		}
+    		focusedUIs = focused;
+    		
+    		Window active = manager.getActiveWindow();
+    		if (active != activeWindow) {
+    			activeWindow = active;
+    			
+    			for (EclipseDockUI ui : uis) {
+    				update(ui);
+    			}
     		}
        	}    	
     }
@@ -244,7 +800,7 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
 		if (focused != this.focused) {
 			this.focused = focused;
 			
-    		tabPane.repaint();
+    		repaintSelection();
 		}
 	}
 	
@@ -252,7 +808,57 @@ public class EclipseDockUI extends BasicTabbedPaneUI {
 		if (active != this.activated) {
 			this.activated = active;
 			
-    		tabPane.repaint();
+			// activation is shown only if focused
+			if (focused) {
+				repaintSelection();
+			}
 		}
 	}
+	
+	/**
+	 * Repaint the regions painted with the selection colors only, i.e. the
+	 * selected tab, the content border and transparent parts of the
+	 * selected component.
+	 */
+	protected void repaintSelection() {
+		int selectedIndex = tabPane.getSelectedIndex();
+		Component selected = tabPane.getSelectedComponent();
+		if (selectedIndex < 0 || selected == null || !selected.isVisible()) {
+			tabPane.repaint();
+			return;
+		}
+		
+		tabPane.repaint(getTabBounds(selectedIndex, new Rectangle()));
+		
+        Insets insets = tabPane.getInsets();
+        int tabAreaHeight = calculateTabAreaHeight(tabPane.getTabPlacement(), runCount, maxTabHeight);
+        
+        int x = insets.left;
+        int y = insets.top + tabAreaHeight;
+        int w = tabPane.getWidth() - insets.right - insets.left;
+        int h = tabPane.getHeight() - insets.top - insets.bottom - tabAreaHeight;
+        
+        // content border around the selected component
+        Rectangle bounds = selected.getBounds();
+        tabPane.repaint(x, y, w, bounds.y - y);
+        tabPane.repaint(x, bounds.y + bounds.height, w, y + h - bounds.y - bounds.height);
+        tabPane.repaint(x, bounds.y, bounds.x - x, bounds.height);
+        tabPane.repaint(bounds.x + bounds.width, bounds.y, x + w - bounds.x - bounds.width, bounds.height);
+        
+        // transparent parts of the selected component
+        if (!selected.isOpaque()) {
+        	Area transparent = new Area(new Rectangle(0, 0, bounds.width, bounds.height));
+        	if (selected instanceof Container) {
+        		for (Component child : ((Container)selected).getComponents()) {
+        			if (child.isVisible() && child.isOpaque()) {
+        				transparent.subtract(new Area(child.getBounds()));
+        			}
+        		}
+        	}
+        	if (!transparent.isEmpty()) {
+        		Rectangle region = transparent.getBounds();
+        		selected.repaint(region.x, region.y, region.width, region.height);
+        	}
+        }
+	}
 }
@@ -0,0 +1,190 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx;
+
+import java.awt.Component;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+
+/**
+ * A <code>RepaintManager</code> counting the regions marked dirty, useful to
+ * verify that components are not repainted unnecessarily.
+ * 
+ * <pre>
+ * RepaintCounter counter = RepaintCounter.install();
+ * counter.watch(content);
+ * // ... change state
+ * if (counter.isDirty()) {
+ * 	// content was repainted
+ * }
+ * counter.uninstall();
+ * </pre>
+ */
+public class RepaintCounter extends RepaintManager {
+
+	private RepaintManager previous;
+
+	private int count;
+
+	private long area;
+
+	private Component component;
+
+	private Rectangle region;
+
+	private List<Rectangle> regions = new ArrayList<Rectangle>();
+
+	private RepaintCounter(RepaintManager previous) {
+		this.previous = previous;
+	}
+
+	/**
+	 * Install a new counter as the current repaint manager.
+	 * 
+	 * @return the installed counter
+	 */
+	public static RepaintCounter install() {
+		RepaintCounter counter = new RepaintCounter(RepaintManager
+				.currentManager(null));
+
+		RepaintManager.setCurrentManager(counter);
+
+		return counter;
+	}
+
+	/**
+	 * Restore the repaint manager that was current before this counter was
+	 * installed.
+	 */
+	public void uninstall() {
+		RepaintManager.setCurrentManager(previous);
+	}
+
+	/**
+	 * Start watching of the given component, i.e. record the union of dirty
+	 * regions intersecting with it.
+	 * 
+	 * @param component
+	 *            component to watch
+	 */
+	public void watch(Component component) {
+		this.component = component;
+		this.region = null;
+		this.regions.clear();
+	}
+
+	@Override
+	public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+		if (w > 0 && h > 0) {
+			count++;
+			area += (long) w * h;
+
+			if (component != null) {
+				Rectangle rect = SwingUtilities.convertRectangle(c,
+						new Rectangle(x, y, w, h), component);
+				rect = rect.intersection(new Rectangle(0, 0, component
+						.getWidth(), component.getHeight()));
+				if (!rect.isEmpty()) {
+					regions.add(rect);
+					if (region == null) {
+						region = new Rectangle(rect);
+					} else {
+						region.add(rect);
+					}
+				}
+			}
+		}
+
+		super.addDirtyRegion(c, x, y, w, h);
+	}
+
+	/**
+	 * Get the count of dirty regions since the last reset.
+	 * 
+	 * @return count
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the summed area of dirty regions since the last reset.
+	 * 
+	 * @return area in pixels
+	 */
+	public long getArea() {
+		return area;
+	}
+
+	/**
+	 * Was a region of the watched component marked dirty since the last
+	 * reset.
+	 * 
+	 * @return <code>true</code> if dirty
+	 * @see #watch(Component)
+	 */
+	public boolean isDirty() {
+		return region != null;
+	}
+
+	/**
+	 * Get the union of dirty regions of the watched component since the last
+	 * reset.
+	 * 
+	 * @return region in coordinates of the watched component or
+	 *         <code>null</code>
+	 * @see #watch(Component)
+	 */
+	public Rectangle getRegion() {
+		return region;
+	}
+
+	/**
+	 * Does any dirty region of the watched component since the last reset
+	 * intersect with the given rectangle.
+	 * 
+	 * @param rect
+	 *            rectangle in coordinates of the watched component
+	 * @return <code>true</code> if intersecting
+	 * @see #watch(Component)
+	 */
+	public boolean isDirty(Rectangle rect) {
+		for (Rectangle region : regions) {
+			if (region.intersects(rect)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reset the counted regions.
+	 */
+	public void reset() {
+		count = 0;
+		area = 0;
+		region = null;
+		regions.clear();
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking.persistence;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.SwingConstants;
+
+import junit.framework.TestCase;
+import swingx.docking.Layout;
+
+/**
+ * Test for {@link BinaryPersister}.
+ */
+public class BinaryPersisterTest extends TestCase {
+
+	private static final String LAYOUT = "<dockingPane version=\"1\">"
+			+ "<docking x=\"10\" y=\"20\" width=\"800\" height=\"600\">"
+			+ "<slice orientation=\"2\" weight=\"0.25\">"
+			+ "<dock><dockable key=\"outline\" selected=\"true\"/><dockable key=\"tasks\"/></dock>"
+			+ "<multiSlice orientation=\"1\" weights=\"0.5,0.25,0.25\">"
+			+ "<bridge key=\"editor\"/>"
+			+ "<dock><dockable key=\"console\"/><dockable key=\"problems &amp; warnings\" selected=\"true\"/></dock>"
+			+ "<dock><dockable key=\"history\" null=\"true\"/></dock>"
+			+ "</multiSlice>" + "</slice>" + "</docking>"
+			+ "<docking x=\"900\" y=\"20\" width=\"300\" height=\"200\">"
+			+ "<dock><dockable key=\"console\" null=\"true\"/><dockable key=\"outline\" null=\"true\"/></dock>"
+			+ "</docking>" + "</dockingPane>";
+
+	public void testRoundTrip() throws Exception {
+		String xml = normalize(LAYOUT);
+
+		byte[] binary = toBinary(xml);
+
+		StringWriter writer = new StringWriter();
+		BinaryPersister.toXML(new BinaryPersister(null,
+				new ByteArrayInputStream(binary), "1"), new XMLPersister(null,
+				writer, "1"));
+
+		assertEquals(xml, writer.toString());
+	}
+
+	public void testSmallerThanXML() throws Exception {
+		String xml = normalize(LAYOUT);
+
+		byte[] binary = toBinary(xml);
+
+		assertTrue(binary.length < xml.getBytes("UTF-8").length);
+	}
+
+	public void testFasterThanXML() throws Exception {
+		String xml = normalize(LAYOUT);
+		byte[] binary = toBinary(xml);
+
+		// warm up
+		readXML(xml, 500);
+		readBinary(binary, 500);
+
+		long xmlTime = Long.MAX_VALUE;
+		long binaryTime = Long.MAX_VALUE;
+		for (int r = 0; r < 5; r++) {
+			xmlTime = Math.min(xmlTime, readXML(xml, 200));
+			binaryTime = Math.min(binaryTime, readBinary(binary, 200));
+		}
+
+		assertTrue("binary " + binaryTime + "ns, XML " + xmlTime + "ns",
+				binaryTime < xmlTime);
+	}
+
+	public void testBinaryRoundTrip() throws Exception {
+		Layout.Node multiSlice = new Layout.MultiSliceNode(
+				SwingConstants.HORIZONTAL, new float[] { 0.5f, 0.3f, 0.2f },
+				new Layout.Node[] {
+						new Layout.BridgeNode("editor", false),
+						new Layout.BridgeNode("missing", true),
+						new Layout.DockNode(new Object[] { "console", "tasks",
+								"outline" }, new boolean[] { false, true, false },
+								2) });
+		Layout.Node root = new Layout.SliceNode(SwingConstants.LEFT, 0.25f,
+				new Layout.DockNode(new Object[] { "outline" },
+						new boolean[] { true }, -1), multiSlice);
+		List<Layout.DockingNode> dockings = new ArrayList<Layout.DockingNode>();
+		dockings.add(new Layout.DockingNode(new Rectangle(1, 2, 300, 400),
+				root));
+
+		byte[] binary = write(new Layout(dockings));
+		Layout layout = read(binary);
+
+		assertTrue(Arrays.equals(binary, write(layout)));
+
+		Layout.DockingNode docking = layout.getDockings().get(0);
+		assertEquals(new Rectangle(1, 2, 300, 400), docking.getScreenBounds());
+
+		Layout.SliceNode slice = (Layout.SliceNode) docking.getRoot();
+		assertEquals(SwingConstants.LEFT, slice.getOrientation());
+		assertEquals(0.25f, slice.getWeight(), 0.0f);
+		assertTrue(((Layout.DockNode) slice.getMain()).isNull(0));
+
+		Layout.MultiSliceNode multi = (Layout.MultiSliceNode) slice
+				.getRemainder();
+		assertEquals(3, multi.getChildCount());
+		assertEquals(0.5f, multi.getWeight(0), 0.0f);
+		assertEquals(0.3f, multi.getWeight(1), 0.0f);
+		assertEquals(0.2f, multi.getWeight(2), 0.0f);
+
+		Layout.BridgeNode bridge = (Layout.BridgeNode) multi.getChild(0);
+		assertEquals("editor", bridge.getKey());
+		assertFalse(bridge.isNull());
+		assertTrue(((Layout.BridgeNode) multi.getChild(1)).isNull());
+
+		Layout.DockNode dock = (Layout.DockNode) multi.getChild(2);
+		assertEquals("tasks", dock.getKey(1));
+		assertFalse(dock.isNull(0));
+		assertTrue(dock.isNull(1));
+		assertEquals(2, dock.getSelected());
+	}
+
+	public void testCorrupt() throws Exception {
+		byte[] binary = toBinary(normalize(LAYOUT));
+
+		byte[] truncated = new byte[binary.length - 3];
+		System.arraycopy(binary, 0, truncated, 0, truncated.length);
+		assertNotRead(truncated);
+
+		byte[] magic = binary.clone();
+		magic[0]++;
+		assertNotRead(magic);
+
+		// unknown node type
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		DataOutputStream out = startBlock(block);
+		out.writeByte(9);
+		assertNotRead(toBinary(block));
+
+		// key index without keys
+		block = new ByteArrayOutputStream();
+		out = startBlock(block);
+		out.writeByte(4);
+		out.writeInt(0);
+		out.writeBoolean(false);
+		assertNotRead(toBinary(block));
+
+		// dock count exceeding the block
+		block = new ByteArrayOutputStream();
+		out = startBlock(block);
+		out.writeByte(3);
+		out.writeInt(Integer.MAX_VALUE);
+		assertNotRead(toBinary(block));
+	}
+
+	public void testTooDeep() throws Exception {
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		DataOutputStream out = startBlock(block);
+		for (int d = 0; d < 100000; d++) {
+			// multi slice with a single child
+			out.writeByte(2);
+			out.writeInt(SwingConstants.VERTICAL);
+			out.writeInt(1);
+			out.writeFloat(1.0f);
+		}
+		out.writeByte(3);
+		out.writeInt(0);
+
+		assertNotRead(toBinary(block));
+	}
+
+	/**
+	 * Start a block of dockings with a single docking.
+	 */
+	private DataOutputStream startBlock(ByteArrayOutputStream block)
+			throws IOException {
+		DataOutputStream out = new DataOutputStream(block);
+		out.writeInt(1);
+		out.writeInt(0);
+		out.writeInt(0);
+		out.writeInt(100);
+		out.writeInt(100);
+		return out;
+	}
+
+	/**
+	 * Prefix the given block of dockings with a header without keys.
+	 */
+	private byte[] toBinary(ByteArrayOutputStream block) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeInt(0x53574458);
+		data.writeInt(1);
+		data.writeBoolean(true);
+		data.writeUTF("1");
+		data.writeInt(0);
+		data.writeInt(block.size());
+		block.writeTo(data);
+		data.flush();
+		return bytes.toByteArray();
+	}
+
+	private void assertNotRead(byte[] binary) {
+		try {
+			read(binary);
+			fail();
+		} catch (IOException expected) {
+		}
+	}
+
+	private Layout read(byte[] binary) throws IOException {
+		return new BinaryPersister(null, new ByteArrayInputStream(binary), "1")
+				.readLayout();
+	}
+
+	private byte[] write(Layout layout) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new BinaryPersister(null, output, "1").writeLayout(layout);
+		return output.toByteArray();
+	}
+
+	private long readXML(String xml, int count) throws Exception {
+		long start = System.nanoTime();
+		for (int c = 0; c < count; c++) {
+			new XMLPersister(null, new StringReader(xml), "1").readLayout();
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long readBinary(byte[] binary, int count) throws Exception {
+		long start = System.nanoTime();
+		for (int c = 0; c < count; c++) {
+			read(binary);
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Normalize the given XML to the form written by {@link XMLPersister}.
+	 */
+	private String normalize(String xml) throws Exception {
+		StringWriter writer = new StringWriter();
+		new XMLPersister(null, writer, "1").writeLayout(new XMLPersister(null,
+				new StringReader(xml), "1").readLayout());
+		return writer.toString();
+	}
+
+	private byte[] toBinary(String xml) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryPersister.fromXML(new XMLPersister(null, new StringReader(xml),
+				"1"), new BinaryPersister(null, output, "1"));
+		return output.toByteArray();
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking.persistence;
+
+import java.awt.Rectangle;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import swingx.docking.Layout;
+
+/**
+ * Test for {@link XMLPersister}.
+ */
+public class XMLPersisterTest extends TestCase {
+
+	public void testEscape() throws Exception {
+		String xml = write("a\u0001b\u001f<&\"'>");
+
+		assertTrue(xml, xml.indexOf("key=\"a&#1;b&#31;&lt;&amp;&quot;'&gt;\"") != -1);
+	}
+
+	public void testEscapeWhitespace() throws Exception {
+		String key = "a\tb\nc\rd";
+
+		String xml = write(key);
+		assertTrue(xml, xml.indexOf("key=\"a&#9;b&#10;c&#13;d\"") != -1);
+
+		Layout layout = new XMLPersister(null, new StringReader(xml), "1")
+				.readLayout();
+		Layout.BridgeNode bridge = (Layout.BridgeNode) layout.getDockings()
+				.get(0).getRoot();
+		assertEquals(key, bridge.getKey());
+	}
+
+	/**
+	 * Write a layout with a single bridge with the given key.
+	 */
+	private String write(String key) throws Exception {
+		List<Layout.DockingNode> dockings = new ArrayList<Layout.DockingNode>();
+		dockings.add(new Layout.DockingNode(new Rectangle(0, 0, 100, 100),
+				new Layout.BridgeNode(key, false)));
+
+		StringWriter writer = new StringWriter();
+		new XMLPersister(null, writer, "1").writeLayout(new Layout(dockings));
+		return writer.toString();
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * swingx - Swing eXtensions
+ * Copyright (C) 2004 Sven Meier
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package swingx.docking.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+
+import javax.swing.JPanel;
+import javax.swing.JTabbedPane;
+
+import junit.framework.TestCase;
+import swingx.RepaintCounter;
+
+/**
+ * Test for {@link EclipseDockUI}.
+ */
+public class EclipseDockUITest extends TestCase {
+
+	private TestUI ui;
+
+	private JTabbedPane tabbedPane;
+
+	private JPanel content;
+
+	private RepaintCounter counter;
+
+	protected void setUp() throws Exception {
+		ui = new TestUI();
+
+		tabbedPane = new JTabbedPane();
+		tabbedPane.setUI(ui);
+
+		JPanel tab = new JPanel(new BorderLayout());
+		tab.setOpaque(false);
+		JPanel header = new JPanel();
+		header.setOpaque(false);
+		header.setPreferredSize(new Dimension(10, 20));
+		tab.add(header, BorderLayout.NORTH);
+		content = new JPanel();
+		tab.add(content, BorderLayout.CENTER);
+
+		tabbedPane.addTab("first", tab);
+		tabbedPane.addTab("second", new JPanel());
+		tabbedPane.setSize(400, 300);
+		tabbedPane.doLayout();
+		tab.doLayout();
+
+		counter = RepaintCounter.install();
+	}
+
+	protected void tearDown() throws Exception {
+		counter.uninstall();
+	}
+
+	public void testFocusRepaintsSelectedTab() {
+		counter.watch(tabbedPane);
+
+		ui.focus(true);
+
+		Rectangle selected = tabbedPane.getBoundsAt(0);
+		Rectangle other = tabbedPane.getBoundsAt(1);
+		assertTrue("selected tab repainted", counter.isDirty(selected));
+		assertFalse("other tab repainted", counter.isDirty(other));
+	}
+
+	public void testFocusDoesNotRepaintContent() {
+		counter.watch(content);
+
+		ui.focus(true);
+		ui.focus(false);
+
+		assertFalse("content repainted", counter.isDirty());
+	}
+
+	public void testActivationRepaintsOnlyIfFocused() {
+		counter.watch(tabbedPane);
+
+		ui.activate(true);
+		assertFalse("repainted while not focused", counter.isDirty());
+
+		ui.focus(true);
+		counter.reset();
+		ui.activate(false);
+		assertTrue("not repainted while focused", counter
+				.isDirty(tabbedPane.getBoundsAt(0)));
+		assertFalse("other tab repainted", counter.isDirty(tabbedPane
+				.getBoundsAt(1)));
+	}
+
+	private class TestUI extends EclipseDockUI {
+		public void focus(boolean focused) {
+			setFocused(focused);
+		}
+
+		public void activate(boolean active) {
+			setActive(active);
+		}
+	}
+}